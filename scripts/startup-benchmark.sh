@@ -0,0 +1,43 @@
+#!/usr/bin/env bash
+# Measures cold start of one way of launching the app: time until GET /api/employees first answers 200
+# and the resident set size at that moment, averaged over RUNS fresh starts.
+#
+#   scripts/startup-benchmark.sh jvm     java -jar target/springboot-testing-0.0.1-SNAPSHOT.jar
+#   scripts/startup-benchmark.sh jvm-aot java -Dspring.aot.enabled=true -jar target/springboot-testing-0.0.1-SNAPSHOT.jar
+#   scripts/startup-benchmark.sh native  target/springboot-testing
+#
+# --server.port is appended to the command. Linux only (reads /proc).
+set -euo pipefail
+
+if [ $# -lt 2 ]; then
+  echo "usage: $0 <label> <command...>" >&2
+  exit 1
+fi
+label=$1
+shift
+runs=${RUNS:-5}
+port=${PORT:-18080}
+url="http://localhost:${port}/api/employees"
+
+total_ms=0
+total_rss=0
+for run in $(seq 1 "$runs"); do
+  start=$(date +%s%N)
+  "$@" --server.port="$port" > /dev/null 2>&1 &
+  pid=$!
+  until curl -sf -o /dev/null "$url"; do
+    if ! kill -0 "$pid" 2> /dev/null; then
+      echo "$label: process exited before answering, run it by hand to see why" >&2
+      exit 1
+    fi
+    sleep 0.02
+  done
+  elapsed_ms=$(( ($(date +%s%N) - start) / 1000000 ))
+  rss_kb=$(awk '/^VmRSS/ {print $2}' "/proc/$pid/status")
+  kill "$pid"
+  wait "$pid" 2> /dev/null || true
+  echo "$label run $run: first response after ${elapsed_ms} ms, rss $((rss_kb / 1024)) MB"
+  total_ms=$((total_ms + elapsed_ms))
+  total_rss=$((total_rss + rss_kb))
+done
+echo "$label average: first response after $((total_ms / runs)) ms, rss $((total_rss / runs / 1024)) MB"
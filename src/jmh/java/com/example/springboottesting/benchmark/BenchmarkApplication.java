@@ -0,0 +1,67 @@
+package com.example.springboottesting.benchmark;
+
+import com.example.springboottesting.SpringbootTestingApplication;
+import com.example.springboottesting.model.Employee;
+import com.example.springboottesting.reactive.ReactiveEmployeeRepository;
+import com.example.springboottesting.service.EmployeeService;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+//boots the application without the web layer and seeds the employees table for a benchmark trial
+final class BenchmarkApplication {
+
+    private static final int SEED_BATCH_SIZE = 5000;
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        SpringApplication application = new SpringApplication(SpringbootTestingApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        return application.run(defaultArgs());
+    }
+
+    //starts the embedded server on a random port, read it back from local.server.port
+    static ConfigurableApplicationContext startWeb(String... args) {
+        SpringApplication application = new SpringApplication(SpringbootTestingApplication.class);
+        return application.run(Stream.concat(Stream.of(defaultArgs()), Stream.of(args))
+                .toArray(String[]::new));
+    }
+
+    private static String[] defaultArgs() {
+        return new String[]{"--spring.jpa.show-sql=false", "--logging.level.root=WARN", "--server.port=0"};
+    }
+
+    static void seed(ConfigurableApplicationContext context, int tableSize) {
+        if (context.getBeanNamesForType(EmployeeService.class).length == 0) {
+            //reactive profile
+            ReactiveEmployeeRepository employeeRepository = context.getBean(ReactiveEmployeeRepository.class);
+            Flux.range(0, tableSize)
+                    .flatMap(i -> employeeRepository.save(employee(i)), 64)
+                    .blockLast();
+            return;
+        }
+        EmployeeService employeeService = context.getBean(EmployeeService.class);
+        for (int from = 0; from < tableSize; from += SEED_BATCH_SIZE) {
+            List<Employee> batch = new ArrayList<>(SEED_BATCH_SIZE);
+            for (int i = from; i < Math.min(from + SEED_BATCH_SIZE, tableSize); i++) {
+                batch.add(employee(i));
+            }
+            employeeService.saveEmployees(batch);
+        }
+    }
+
+    static Employee employee(int i) {
+        return Employee.builder()
+                .firstName("first" + i)
+                .lastName("last" + i)
+                .email("employee" + i + "@abc.com")
+                .build();
+    }
+}
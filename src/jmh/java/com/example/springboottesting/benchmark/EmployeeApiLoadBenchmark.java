@@ -0,0 +1,58 @@
+package com.example.springboottesting.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//http load against the running server with more client threads than tomcat workers, compares the
+//platform thread pool, app.threads.virtual.enabled=true (needs a java 21 runtime) and the reactive profile
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(256)
+@Fork(1)
+public class EmployeeApiLoadBenchmark {
+
+    private static final int TABLE_SIZE = 10000;
+
+    @Param({"platform", "virtual", "reactive"})
+    private String mode;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient httpClient;
+
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkApplication.startWeb("--app.threads.virtual.enabled=" + mode.equals("virtual"),
+                "--spring.profiles.active=" + (mode.equals("reactive") ? "reactive" : "default"),
+                "--server.tomcat.threads.max=64");
+        BenchmarkApplication.seed(context, TABLE_SIZE);
+        httpClient = HttpClient.newHttpClient();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/employees";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    //keyset page reads always hit the database, unlike the cached lookup by id
+    @Benchmark
+    public int getEmployeePage() throws IOException, InterruptedException {
+        int after = ThreadLocalRandom.current().nextInt(TABLE_SIZE);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "?after=" + after + "&limit=20")).build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
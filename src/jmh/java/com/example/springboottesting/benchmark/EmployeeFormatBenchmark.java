@@ -0,0 +1,96 @@
+package com.example.springboottesting.benchmark;
+
+import com.example.springboottesting.model.Employee;
+import com.example.springboottesting.protobuf.EmployeeProtobufHttpMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+//encode and decode time of getAllEmployees bodies per Accept format, with and without gzip (what
+//server.compression adds). The encoded size of every combination is printed when its trial starts
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class EmployeeFormatBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int listSize;
+
+    @Param({"json", "smile", "cbor", "protobuf"})
+    private String format;
+
+    @Param({"none", "gzip"})
+    private String compression;
+
+    private List<Employee> employees;
+
+    private ObjectWriter writer;
+
+    private ObjectReader reader;
+
+    private ByteArrayOutputStream buffer;
+
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ObjectMapper objectMapper = switch (format) {
+            case "smile" -> SmileMapper.builder().findAndAddModules().build();
+            case "cbor" -> CBORMapper.builder().findAndAddModules().build();
+            default -> JsonMapper.builder().findAndAddModules().build();
+        };
+        writer = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Employee.class));
+        reader = objectMapper.readerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Employee.class));
+        employees = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            Employee employee = BenchmarkApplication.employee(i);
+            employee.setId((long) i + 1);
+            employee.setVersion(0L);
+            employees.add(employee);
+        }
+        buffer = new ByteArrayOutputStream(listSize * 100);
+        encode();
+        encoded = buffer.toByteArray();
+        System.out.printf("%n# %s/%s %d employees: %d bytes%n", format, compression, listSize, encoded.length);
+    }
+
+    @Benchmark
+    public int encode() throws IOException {
+        buffer.reset();
+        OutputStream out = compression.equals("gzip") ? new GZIPOutputStream(buffer, 8192) : buffer;
+        if (format.equals("protobuf")) {
+            EmployeeProtobufHttpMessageConverter.writeEmployees(employees, out);
+        } else {
+            writer.writeValue(out, employees);
+        }
+        out.close();
+        return buffer.size();
+    }
+
+    @Benchmark
+    public List<Employee> decode() throws IOException {
+        InputStream in = new ByteArrayInputStream(encoded);
+        if (compression.equals("gzip")) {
+            in = new GZIPInputStream(in, 8192);
+        }
+        return format.equals("protobuf") ? EmployeeProtobufHttpMessageConverter.readEmployees(in) : reader.readValue(in);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.springboottesting.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//far more clients than a 4 connection pool can serve, with and without app.rate-limit.enabled.
+//compare the sample time percentiles; served and rejected count the 200 and the 429/503 answers
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(128)
+@Fork(1)
+public class EmployeeOverloadBenchmark {
+
+    private static final int TABLE_SIZE = 10000;
+
+    @Param({"false", "true"})
+    private String rateLimit;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient httpClient;
+
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        //all clients share localhost, the benchmark stands in for a proxy that sets the client header
+        context = BenchmarkApplication.startWeb("--app.rate-limit.enabled=" + rateLimit, "--app.rate-limit.trust-client-header=true",
+                "--server.tomcat.threads.max=400", "--server.tomcat.accept-count=1000", "--spring.datasource.hikari.maximum-pool-size=4", "--spring.datasource.hikari.minimum-idle=4");
+        BenchmarkApplication.seed(context, TABLE_SIZE);
+        httpClient = HttpClient.newHttpClient();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/employees";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    //every benchmark thread is its own client, so the per client budgets do not reject the load by themselves
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Client {
+
+        private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+        private final String id = "client-" + NEXT_ID.incrementAndGet();
+
+        public long served;
+
+        public long rejected;
+    }
+
+    @Benchmark
+    public int getEmployeePage(Client client) throws IOException, InterruptedException {
+        int after = ThreadLocalRandom.current().nextInt(TABLE_SIZE);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "?after=" + after + "&limit=100"))
+                .header("X-Client-Id", client.id)
+                .build();
+        int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status == 200) {
+            client.served++;
+        } else {
+            client.rejected++;
+        }
+        return status;
+    }
+}
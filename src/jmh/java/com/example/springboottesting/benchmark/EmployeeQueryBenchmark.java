@@ -0,0 +1,73 @@
+package com.example.springboottesting.benchmark;
+
+import com.example.springboottesting.model.Employee;
+import com.example.springboottesting.repository.EmployeeRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//the four findByFirstNameAndLastName variants against the same data, plus findByEmail,
+//all served by the first_name,last_name index and the email unique index
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeQueryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int tableSize;
+
+    private ConfigurableApplicationContext context;
+
+    private EmployeeRepository employeeRepository;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkApplication.start();
+        BenchmarkApplication.seed(context, tableSize);
+        employeeRepository = context.getBean(EmployeeRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Employee jpqlIndexParams() {
+        int i = randomRow();
+        return employeeRepository.findByFirstNameAndLastName("first" + i, "last" + i);
+    }
+
+    @Benchmark
+    public Employee jpqlNamedParams() {
+        int i = randomRow();
+        return employeeRepository.findByFirstNameAndLastNameWithNamedParams("first" + i, "last" + i);
+    }
+
+    @Benchmark
+    public Employee nativeIndexParams() {
+        int i = randomRow();
+        return employeeRepository.findByFirstNameAndLastNameWithSQLNativeQuery("first" + i, "last" + i);
+    }
+
+    @Benchmark
+    public Employee nativeNamedParams() {
+        int i = randomRow();
+        return employeeRepository.findByFirstNameAndLastNameWithSQLNativeQueryNamedParams("first" + i, "last" + i);
+    }
+
+    @Benchmark
+    public Optional<Employee> findByEmail() {
+        return employeeRepository.findByEmail("employee" + randomRow() + "@abc.com");
+    }
+
+    private int randomRow() {
+        return ThreadLocalRandom.current().nextInt(tableSize);
+    }
+}
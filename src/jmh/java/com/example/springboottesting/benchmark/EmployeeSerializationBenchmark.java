@@ -0,0 +1,102 @@
+package com.example.springboottesting.benchmark;
+
+import com.example.springboottesting.json.EmployeeJsonHttpMessageConverter;
+import com.example.springboottesting.model.Employee;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//employee lists as returned by getAllEmployees written into a reused buffer standing in for the servlet output
+//buffer: jackson with reflection, jackson with blackbird, and the cached fragments of EmployeeJsonHttpMessageConverter
+//(every employee already encoded, the steady state for unchanged rows). Run with -prof gc for allocations
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeSerializationBenchmark {
+
+    private static final Type EMPLOYEE_LIST = ResolvableType.forClassWithGenerics(List.class, Employee.class).getType();
+
+    @Param({"100", "1000", "10000"})
+    private int listSize;
+
+    private ObjectWriter writer;
+
+    private ObjectWriter blackbirdWriter;
+
+    private EmployeeJsonHttpMessageConverter converter;
+
+    private List<Employee> employees;
+
+    private ByteArrayOutputStream buffer;
+
+    private HttpOutputMessage outputMessage;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+        writer = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Employee.class));
+        ObjectMapper blackbirdMapper = JsonMapper.builder().findAndAddModules().addModule(new BlackbirdModule()).build();
+        blackbirdWriter = blackbirdMapper.writerFor(blackbirdMapper.getTypeFactory().constructCollectionType(List.class, Employee.class));
+        converter = new EmployeeJsonHttpMessageConverter(objectMapper, listSize);
+        employees = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            Employee employee = BenchmarkApplication.employee(i);
+            employee.setId((long) i + 1);
+            employee.setVersion(0L);
+            employees.add(employee);
+        }
+        buffer = new ByteArrayOutputStream(listSize * 128);
+        HttpHeaders headers = new HttpHeaders();
+        outputMessage = new HttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return buffer;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+        };
+        writeEmployeeListCached();
+    }
+
+    @Benchmark
+    public int writeEmployeeList() throws IOException {
+        buffer.reset();
+        writer.writeValue(buffer, employees);
+        return buffer.size();
+    }
+
+    @Benchmark
+    public int writeEmployeeListBlackbird() throws IOException {
+        buffer.reset();
+        blackbirdWriter.writeValue(buffer, employees);
+        return buffer.size();
+    }
+
+    @Benchmark
+    public int writeEmployeeListCached() throws IOException {
+        buffer.reset();
+        outputMessage.getHeaders().clear();
+        converter.write(employees, EMPLOYEE_LIST, MediaType.APPLICATION_JSON, outputMessage);
+        return buffer.size();
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.springboottesting.changes;
+
+import com.example.springboottesting.event.EmployeeChangedEvent;
+import com.example.springboottesting.exception.ChangesExpiredException;
+import com.example.springboottesting.model.EmployeeChange;
+import com.example.springboottesting.repository.EmployeeChangeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//publishes the outbox written by EmployeeChangeOutbox. Sequence numbers are handed out by a single relay
+//thread after commit, not at insert time, so a reader that has seen sequence n never finds a smaller
+//one committed later. Pollers wait for the relay instead of hitting the database in a loop
+@Component
+@Profile("!reactive & !sharded")
+public class EmployeeChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(EmployeeChangeFeed.class);
+
+    private final EmployeeChangeRepository employeeChangeRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    private final Executor executor;
+
+    private final int relayBatchSize;
+
+    private final long relayIntervalMillis;
+
+    private final Duration retention;
+
+    private final ScheduledExecutorService relay = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "employee-change-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    //writes right after each other trigger one relay run, not one each
+    private final AtomicBoolean relayRequested = new AtomicBoolean();
+
+    private final ConcurrentLinkedQueue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    private volatile long lastSequence;
+
+    //changes up to here were deleted after the retention period
+    private volatile long prunedThrough;
+
+    public EmployeeChangeFeed(EmployeeChangeRepository employeeChangeRepository, PlatformTransactionManager transactionManager,
+                              @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor,
+                              @Value("${app.changes.relay-batch-size}") int relayBatchSize,
+                              @Value("${app.changes.relay-interval-ms}") long relayIntervalMillis,
+                              @Value("${app.changes.retention}") Duration retention) {
+        this.employeeChangeRepository = employeeChangeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.executor = executor;
+        this.relayBatchSize = relayBatchSize;
+        this.relayIntervalMillis = relayIntervalMillis;
+        this.retention = retention;
+    }
+
+    @PostConstruct
+    public void start() {
+        lastSequence = employeeChangeRepository.findLastSequence().orElse(0L);
+        prunedThrough = employeeChangeRepository.findFirstSequence().map(first -> first - 1).orElse(lastSequence);
+        //the interval run only catches rows whose after-commit trigger was lost, e.g. written by another instance
+        relay.scheduleWithFixedDelay(this::relayPending, relayIntervalMillis, relayIntervalMillis, TimeUnit.MILLISECONDS);
+        relay.scheduleWithFixedDelay(this::prune, 1, 1, TimeUnit.HOURS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        relay.shutdown();
+        relay.awaitTermination(30, TimeUnit.SECONDS);
+        waiters.forEach(waiter -> waiter.signal().complete(false));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        if (relayRequested.compareAndSet(false, true)) {
+            relay.execute(this::relayPending);
+        }
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    //up to limit changes after since, waits up to wait for the first one; an empty list when none came
+    public CompletableFuture<List<EmployeeChange>> poll(long since, int limit, Duration wait) {
+        if (since < prunedThrough) {
+            throw new ChangesExpiredException("Changes after " + since + " are no longer retained, the oldest is "
+                    + (prunedThrough + 1));
+        }
+        return CompletableFuture.supplyAsync(() -> getChanges(since, limit), executor)
+                .thenCompose(changes -> !changes.isEmpty() || wait.isZero()
+                        ? CompletableFuture.completedFuture(changes)
+                        : awaitChanges(since, limit, wait));
+    }
+
+    private CompletableFuture<List<EmployeeChange>> awaitChanges(long since, int limit, Duration wait) {
+        Waiter waiter = new Waiter(since, new CompletableFuture<>());
+        waiters.add(waiter);
+        //the relay may have published between the query and registering
+        if (lastSequence > since) {
+            waiter.signal().complete(true);
+        }
+        waiter.signal().completeOnTimeout(false, wait.toMillis(), TimeUnit.MILLISECONDS);
+        return waiter.signal()
+                .whenComplete((changed, error) -> waiters.remove(waiter))
+                .thenApplyAsync(changed -> changed ? getChanges(since, limit) : List.<EmployeeChange>of(), executor);
+    }
+
+    private List<EmployeeChange> getChanges(long since, int limit) {
+        return readOnlyTransactionTemplate.execute(status ->
+                employeeChangeRepository.findPublishedAfter(since, PageRequest.ofSize(limit)));
+    }
+
+    synchronized void relayPending() {
+        relayRequested.set(false);
+        try {
+            int published;
+            do {
+                published = transactionTemplate.execute(status -> {
+                    List<EmployeeChange> pending = employeeChangeRepository.findUnpublished(PageRequest.ofSize(relayBatchSize));
+                    if (pending.isEmpty()) {
+                        return 0;
+                    }
+                    //read under the lock, another instance may have published since our last run
+                    long sequence = employeeChangeRepository.findLastSequence().orElse(0L);
+                    for (EmployeeChange change : pending) {
+                        change.setSequence(++sequence);
+                    }
+                    return pending.size();
+                });
+                if (published > 0) {
+                    lastSequence = employeeChangeRepository.findLastSequence().orElse(0L);
+                }
+            } while (published == relayBatchSize);
+        } catch (RuntimeException e) {
+            log.warn("Could not publish employee changes, retrying on the next run", e);
+        }
+        long last = lastSequence;
+        for (Waiter waiter : waiters) {
+            if (waiter.since() < last) {
+                waiter.signal().complete(true);
+            }
+        }
+    }
+
+    synchronized void prune() {
+        try {
+            long keepFrom = lastSequence;
+            int deleted = transactionTemplate.execute(status ->
+                    employeeChangeRepository.deletePublishedBefore(Instant.now().minus(retention), keepFrom));
+            if (deleted > 0) {
+                prunedThrough = employeeChangeRepository.findFirstSequence().map(first -> first - 1).orElse(keepFrom - 1);
+                log.info("Pruned {} employee changes, the oldest retained is {}", deleted, prunedThrough + 1);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not prune employee changes", e);
+        }
+    }
+
+    private record Waiter(long since, CompletableFuture<Boolean> signal) {
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.springboottesting.changes;
+
+import com.example.springboottesting.event.EmployeeChangedEvent;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+//transactional outbox: a plain (not transactional) listener runs inside the transaction of the write that
+//published the event, so the change row commits or rolls back together with the employee row.
+//Rows are collected per transaction and inserted as one jdbc batch right before the commit, hibernate
+//can not batch them itself because EmployeeChange ids are identity generated
+@Component
+@Profile("!reactive & !sharded")
+public class EmployeeChangeOutbox {
+
+    private static final String INSERT_CHANGE =
+            "insert into employee_changes (type, employee_id, employee, changed_at) values (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final EntityManager entityManager;
+
+    //a patch only carries the fields it sets
+    private final ObjectMapper objectMapper;
+
+    private final int batchSize;
+
+    public EmployeeChangeOutbox(DataSource dataSource, EntityManager entityManager, ObjectMapper objectMapper,
+                                @Value("${spring.jpa.properties.hibernate.jdbc.batch_size}") int batchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper.copy().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        this.batchSize = batchSize;
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        pendingChanges().add(new Object[]{event.getType().name(), event.getId(), toJson(event), Timestamp.from(Instant.now())});
+    }
+
+    //bound to the current transaction, a transaction suspended by a nested one keeps its own list
+    @SuppressWarnings("unchecked")
+    private List<Object[]> pendingChanges() {
+        List<Object[]> pending = (List<Object[]>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<Object[]> changes = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+                //the employee rows are flushed first, so their row locks are held when the change ids are drawn
+                //and two writes of the same employee still get ids in commit order
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    entityManager.flush();
+                    jdbcTemplate.batchUpdate(INSERT_CHANGE, changes, batchSize, (statement, change) -> {
+                        for (int i = 0; i < change.length; i++) {
+                            statement.setObject(i + 1, change[i]);
+                        }
+                    });
+                }
+
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResource(EmployeeChangeOutbox.this);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(EmployeeChangeOutbox.this, changes);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(EmployeeChangeOutbox.this);
+                }
+            });
+            pending = changes;
+        }
+        return pending;
+    }
+
+    private String toJson(EmployeeChangedEvent event) {
+        if (event.getEmployee() == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(event.getEmployee());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize employee " + event.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.springboottesting.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+//caffeine caches are created from spring.cache.* in application.properties,
+//hit/miss/eviction counters are published under the cache.* metrics
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String EMPLOYEES_BY_ID = "employeesById";
+
+    public static final String EMPLOYEES_BY_EMAIL = "employeesByEmail";
+}
@@ -0,0 +1,19 @@
+package com.example.springboottesting.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+//enables @Timed on service beans, endpoint, repository, hikari, cache and hibernate
+//metrics are bound by spring boot and scraped from /actuator/prometheus
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfig {
+
+    public static final String SERVICE_TIMER = "employee.service";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
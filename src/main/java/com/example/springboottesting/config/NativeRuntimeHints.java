@@ -0,0 +1,46 @@
+package com.example.springboottesting.config;
+
+import com.example.springboottesting.dto.BulkItemResult;
+import com.example.springboottesting.dto.EmployeeChangePage;
+import com.example.springboottesting.dto.EmployeeLookupResult;
+import com.example.springboottesting.dto.EmployeePage;
+import com.example.springboottesting.dto.EmployeeSetSignature;
+import com.example.springboottesting.dto.EmployeeSummary;
+import com.example.springboottesting.dto.ImportResult;
+import com.example.springboottesting.dto.IngestTicket;
+import com.example.springboottesting.model.Employee;
+import com.example.springboottesting.model.EmployeeChange;
+import com.example.springboottesting.sharding.ShardAwareSequenceGenerator;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.ExecutableMode;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.data.projection.TargetAware;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+
+//what spring aot can not infer for the native image (-Pnative): json bodies that are only reachable through
+//generics, the jpql constructor expression, the interface projection proxy of the signature queries,
+//the id generator hibernate loads by name, sql scripts outside the boot defaults and the virtual thread
+//factory looked up by VirtualThreadConfig. Lombok builders are plain compiled code and need no hints
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                Employee.class, EmployeeSummary.class, EmployeePage.class, BulkItemResult.class,
+                IngestTicket.class, ImportResult.class, EmployeeChangePage.class, EmployeeChange.class,
+                EmployeeLookupResult.class);
+        hints.reflection().registerType(EmployeeSummary.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        hints.reflection().registerType(EmployeeSetSignature.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.proxies().registerJdkProxy(AopProxyUtils.completeJdkProxyInterfaces(EmployeeSetSignature.class, TargetAware.class));
+        hints.reflection().registerType(ShardAwareSequenceGenerator.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.reflection().registerType(Executors.class,
+                hint -> hint.withMethod("newVirtualThreadPerTaskExecutor", List.of(), ExecutableMode.INVOKE));
+        hints.resources().registerPattern("reactive-schema.sql");
+        hints.resources().registerPattern("sharded-schema.sql");
+    }
+}
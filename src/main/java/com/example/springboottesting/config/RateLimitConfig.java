@@ -0,0 +1,50 @@
+package com.example.springboottesting.config;
+
+import com.example.springboottesting.filter.AdaptiveConcurrencyLimiter;
+import com.example.springboottesting.filter.RateLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+//app.rate-limit.enabled=true puts RateLimitFilter in front of /api/employees
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+@ConditionalOnProperty(name = "app.rate-limit.enabled", havingValue = "true")
+public class RateLimitConfig {
+
+    @Bean
+    public AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter(
+            @Value("${app.rate-limit.concurrency.initial}") int initialLimit,
+            @Value("${app.rate-limit.concurrency.min}") int minLimit,
+            @Value("${app.rate-limit.concurrency.max}") int maxLimit,
+            @Value("${app.rate-limit.concurrency.target-latency}") Duration targetLatency,
+            @Value("${app.rate-limit.concurrency.backoff-ratio}") double backoffRatio) {
+        return new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, targetLatency.toNanos(), backoffRatio);
+    }
+
+    //runs before everything else so rejected requests cost next to nothing
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(
+            AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter, MeterRegistry meterRegistry,
+            @Value("${app.rate-limit.client-header}") String clientHeader,
+            @Value("${app.rate-limit.trust-client-header}") boolean trustClientHeader,
+            @Value("${app.rate-limit.point.rate}") double pointRate,
+            @Value("${app.rate-limit.point.burst}") int pointBurst,
+            @Value("${app.rate-limit.expensive.rate}") double expensiveRate,
+            @Value("${app.rate-limit.expensive.burst}") int expensiveBurst,
+            @Value("${app.rate-limit.max-clients}") int maxClients) {
+        RateLimitFilter filter = new RateLimitFilter(clientHeader, trustClientHeader, new RateLimitFilter.Budget(pointRate, pointBurst),
+                new RateLimitFilter.Budget(expensiveRate, expensiveBurst), maxClients, adaptiveConcurrencyLimiter, meterRegistry);
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/employees", "/api/employees/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
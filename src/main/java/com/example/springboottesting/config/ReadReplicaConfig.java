@@ -0,0 +1,108 @@
+package com.example.springboottesting.config;
+
+import com.example.springboottesting.datasource.ReplicaLagMonitor;
+import com.example.springboottesting.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//app.datasource.replicas.enabled=true sends @Transactional(readOnly = true) work (including the read
+//methods of the spring data repositories) to app.datasource.replicas.urls, see ReplicaRoutingDataSource.
+//spring.datasource.* configures the primary, replicas share its credentials and pool settings
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+@ConditionalOnProperty(name = "app.datasource.replicas.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public ReplicaLagMonitor replicaLagMonitor(HikariDataSource primaryDataSource, ReplicaDataSources replicaDataSources,
+                                               @Value("${app.datasource.replicas.max-lag}") Duration maxLag,
+                                               @Value("${app.datasource.replicas.heartbeat-interval}") Duration interval) {
+        return new ReplicaLagMonitor(primaryDataSource, replicaDataSources.get(), maxLag, interval);
+    }
+
+    @Bean
+    public ReplicaDataSources replicaDataSources(DataSourceProperties properties, HikariDataSource primaryDataSource,
+                                                 @Value("${app.datasource.replicas.urls}") List<String> urls,
+                                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            //same sizing, timeouts, leak detection and driver properties as the primary pool
+            HikariDataSource replica = new HikariDataSource();
+            primaryDataSource.copyStateTo(replica);
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setJdbcUrl(urls.get(i));
+            replica.setUsername(properties.determineUsername());
+            replica.setPassword(properties.determinePassword());
+            replica.setReadOnly(true);
+            meterRegistry.ifAvailable(registry -> replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            replicas.put(replica.getPoolName(), replica);
+        }
+        return new ReplicaDataSources(replicas);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaDataSources replicaDataSources,
+                                 ReplicaLagMonitor replicaLagMonitor) {
+        ReplicaRoutingDataSource routingDataSource =
+                new ReplicaRoutingDataSource(primaryDataSource, replicaDataSources.get(), replicaLagMonitor);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    //spring's default DELAYED_ACQUISITION_AND_HOLD keeps a session on its first connection, and with
+    //open-in-view the session spans the request: a write after a replica read would run on the replica.
+    //Releasing after each transaction lets the next one route again
+    @Bean
+    public HibernatePropertiesCustomizer replicaHibernatePropertiesCustomizer() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    //replica pools are not DataSource beans, so nothing but the routing data source picks them up
+    public static class ReplicaDataSources implements AutoCloseable {
+
+        private final Map<String, DataSource> replicas;
+
+        ReplicaDataSources(Map<String, DataSource> replicas) {
+            this.replicas = replicas;
+        }
+
+        public Map<String, DataSource> get() {
+            return replicas;
+        }
+
+        @Override
+        public void close() {
+            replicas.values().forEach(replica -> ((HikariDataSource) replica).close());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.springboottesting.config;
+
+import com.example.springboottesting.sharding.ShardConnectionProvider;
+import com.example.springboottesting.sharding.ShardEmailDirectory;
+import com.example.springboottesting.sharding.ShardRouter;
+import com.example.springboottesting.sharding.ShardTenantResolver;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+//--spring.profiles.active=sharded: one hibernate tenant per shard database, the shard of a session is
+//taken from ShardRouter.inShard when it opens; ShardedEmployeeService decides where each call goes
+@Configuration(proxyBeanMethods = false)
+@Profile("sharded")
+public class ShardingConfig {
+
+    //the spring.datasource.hikari settings, applied to every shard pool
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariConfig shardPoolConfig() {
+        return new HikariConfig();
+    }
+
+    @Bean
+    public ShardDataSources shardDataSources(DataSourceProperties properties, @Value("${app.sharding.urls}") List<String> urls,
+                                             HikariConfig shardPoolConfig, ObjectProvider<MeterRegistry> meterRegistry) {
+        ResourceDatabasePopulator schema = new ResourceDatabasePopulator(new ClassPathResource("sharded-schema.sql"));
+        List<DataSource> shards = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource shard = new HikariDataSource();
+            shardPoolConfig.copyStateTo(shard);
+            shard.setPoolName("shard-" + i);
+            shard.setJdbcUrl(urls.get(i));
+            shard.setUsername(properties.determineUsername());
+            shard.setPassword(properties.determinePassword());
+            meterRegistry.ifAvailable(registry -> shard.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            DatabasePopulatorUtils.execute(schema, shard);
+            shards.add(shard);
+        }
+        return new ShardDataSources(shards);
+    }
+
+    @Bean
+    public ShardRouter shardRouter(ShardDataSources shardDataSources, @Value("${app.sharding.fan-out-threads}") int fanOutThreads) {
+        return new ShardRouter(shardDataSources.get().size(), fanOutThreads);
+    }
+
+    @Bean
+    public ShardEmailDirectory shardEmailDirectory(ShardDataSources shardDataSources, ShardRouter shardRouter) {
+        return new ShardEmailDirectory(shardDataSources.get(), shardRouter);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardingHibernatePropertiesCustomizer(ShardDataSources shardDataSources) {
+        return properties -> {
+            properties.put(AvailableSettings.MULTI_TENANT_CONNECTION_PROVIDER, new ShardConnectionProvider(shardDataSources.get()));
+            properties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, new ShardTenantResolver());
+        };
+    }
+
+    //shard pools are not DataSource beans, spring.datasource stays the one boot and hibernate bootstrap with
+    public static class ShardDataSources implements AutoCloseable {
+
+        private final List<DataSource> shards;
+
+        ShardDataSources(List<DataSource> shards) {
+            this.shards = shards;
+        }
+
+        public List<DataSource> get() {
+            return shards;
+        }
+
+        @Override
+        public void close() {
+            shards.forEach(shard -> ((HikariDataSource) shard).close());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.springboottesting.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+//app.startup.training-run=true: once started, send one GET /api/employees to this server and exit.
+//The cds maven profile runs the app like this to record the classes a start plus first request loads
+@Component
+@ConditionalOnProperty(name = "app.startup.training-run", havingValue = "true")
+public class TrainingRun {
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void run(ApplicationReadyEvent event) throws IOException, InterruptedException {
+        ConfigurableApplicationContext context = event.getApplicationContext();
+        String port = context.getEnvironment().getProperty("local.server.port");
+        HttpClient.newHttpClient().send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/employees")).build(),
+                HttpResponse.BodyHandlers.discarding());
+        System.exit(SpringApplication.exit(context));
+    }
+}
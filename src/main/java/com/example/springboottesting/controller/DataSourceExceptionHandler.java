@@ -0,0 +1,46 @@
+package com.example.springboottesting.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.sql.SQLTransientConnectionException;
+
+//hikari gives up after spring.datasource.hikari.connection-timeout with SQLTransientConnectionException,
+//which reaches the controllers wrapped by the transaction manager or the jpa exception translation.
+//a saturated pool answers 503 so clients back off instead of piling more requests onto it
+@RestControllerAdvice
+@Profile("!reactive")
+public class DataSourceExceptionHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(DataSourceExceptionHandler.class);
+
+    static final String RETRY_AFTER_SECONDS = "1";
+
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<String> handleConnectionFailure(RuntimeException e) {
+        if (!isPoolTimeout(e)) {
+            throw e;
+        }
+        log.warn("connection pool saturated: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body("Database connection pool exhausted, retry later");
+    }
+
+    static boolean isPoolTimeout(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.springboottesting.controller;
+
+import com.example.springboottesting.changes.EmployeeChangeFeed;
+import com.example.springboottesting.dto.EmployeeChangePage;
+import com.example.springboottesting.model.EmployeeChange;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//change feed for consumers that used to diff GET /api/employees: pass the returned next (long poll)
+//or the last event id (server sent events) back as since to resume without gaps or repeats
+@RestController
+@Profile("!reactive & !sharded")
+@RequestMapping("/api/employees")
+public class EmployeeChangeController {
+
+    static final int MAX_CHANGES = 1000;
+
+    static final long MAX_WAIT_SECONDS = 60;
+
+    //an empty poll of an event stream sends a comment, which is how a disconnected client is noticed
+    static final Duration STREAM_KEEPALIVE = Duration.ofSeconds(30);
+
+    @Autowired
+    private EmployeeChangeFeed employeeChangeFeed;
+
+    //long poll: answers as soon as there are changes after ?since=, or with none after ?wait= seconds
+    @GetMapping("changes")
+    public DeferredResult<ResponseEntity<EmployeeChangePage>> getChanges(@RequestParam(name = "since", defaultValue = "0") long since,
+                                                                         @RequestParam(name = "limit", defaultValue = "100") int limit,
+                                                                         @RequestParam(name = "wait", defaultValue = "30") long waitSeconds){
+        DeferredResult<ResponseEntity<EmployeeChangePage>> result=new DeferredResult<>(
+                Duration.ofSeconds(waitSeconds+10).toMillis());
+        if(since<0 || limit<1 || limit>MAX_CHANGES || waitSeconds<0 || waitSeconds>MAX_WAIT_SECONDS){
+            result.setResult(ResponseEntity.badRequest().build());
+            return result;
+        }
+        employeeChangeFeed.poll(since,limit,Duration.ofSeconds(waitSeconds)).whenComplete((changes,error)->{
+            if(error!=null){
+                result.setErrorResult(error);
+                return;
+            }
+            long next=changes.isEmpty() ? since : changes.get(changes.size()-1).getSequence();
+            result.setResult(ResponseEntity.ok(new EmployeeChangePage(changes,next)));
+        });
+        return result;
+    }
+
+    //server sent events, one per change with the sequence as id; reconnecting clients send it back as Last-Event-ID
+    @GetMapping(value = "changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(name = "since", defaultValue = "0") long since,
+                                    @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId){
+        long from=lastEventId!=null ? lastEventId : since;
+        //no timeout, the stream lasts until the client goes away
+        SseEmitter emitter=new SseEmitter(0L);
+        AtomicBoolean closed=new AtomicBoolean();
+        emitter.onCompletion(()->closed.set(true));
+        emitter.onError(error->closed.set(true));
+        sendChanges(emitter,closed,from);
+        return emitter;
+    }
+
+    private void sendChanges(SseEmitter emitter, AtomicBoolean closed, long since){
+        if(closed.get()){
+            return;
+        }
+        employeeChangeFeed.poll(since,MAX_CHANGES,STREAM_KEEPALIVE).whenComplete((changes,error)->{
+            if(error!=null){
+                emitter.completeWithError(error);
+                return;
+            }
+            long next=since;
+            try {
+                if(changes.isEmpty()){
+                    emitter.send(SseEmitter.event().comment("keepalive"));
+                }
+                for(EmployeeChange change:changes){
+                    emitter.send(SseEmitter.event()
+                            .id(String.valueOf(change.getSequence()))
+                            .name(change.getType().name())
+                            .data(change,MediaType.APPLICATION_JSON));
+                    next=change.getSequence();
+                }
+            } catch (IOException | IllegalStateException e) {
+                //client gone or emitter already completed
+                closed.set(true);
+                return;
+            }
+            sendChanges(emitter,closed,next);
+        });
+    }
+}
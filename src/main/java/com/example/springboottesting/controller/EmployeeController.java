@@ -1,40 +1,202 @@
 package com.example.springboottesting.controller;
 
+import com.example.springboottesting.dto.BulkItemResult;
+import com.example.springboottesting.dto.EmployeeLookupRequest;
+import com.example.springboottesting.dto.EmployeeLookupResult;
+import com.example.springboottesting.dto.EmployeePage;
+import com.example.springboottesting.dto.EmployeeSetSignature;
+import com.example.springboottesting.dto.EmployeeSummary;
+import com.example.springboottesting.dto.IngestTicket;
+import com.example.springboottesting.ingest.EmployeeIngestQueue;
+import com.example.springboottesting.repository.EmployeeFieldsRepository;
 import com.example.springboottesting.model.Employee;
 import com.example.springboottesting.service.EmployeeService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/employees")
 public class EmployeeController {
 
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    static final int MAX_SEARCH_RESULTS = 100;
+
+    static final int MAX_BATCH_SIZE = 5000;
+
     @Autowired
     private EmployeeService employeeService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    //only present with app.ingest.async.enabled=true
+    @Autowired(required = false)
+    private EmployeeIngestQueue employeeIngestQueue;
+
 
     @PostMapping
-    @ResponseStatus(HttpStatus.CREATED)
-    public Employee createEmployee(@RequestBody Employee employee){
-        return employeeService.saveEmployee(employee);
+    public ResponseEntity<?> createEmployee(@RequestBody Employee employee){
+        if(employeeIngestQueue!=null){
+            return employeeIngestQueue.submit(employee)
+                    .<ResponseEntity<?>>map(ticket->ResponseEntity.accepted()
+                            .location(URI.create("/api/employees/ingest/"+ticket.getTrackingId()))
+                            .body(ticket))
+                    .orElseGet(()->ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                            .header(HttpHeaders.RETRY_AFTER,"1")
+                            .build());
+        }
+        return new ResponseEntity<>(employeeService.saveEmployee(employee),HttpStatus.CREATED);
+    }
+
+    @GetMapping("ingest/{trackingId}")
+    public ResponseEntity<IngestTicket> getIngestTicket(@PathVariable("trackingId") String trackingId){
+        if(employeeIngestQueue==null){
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.of(employeeIngestQueue.getTicket(trackingId));
     }
 
+    //etags are derived from versions, never from the body: a conditional request is answered from
+    //the version column or a set signature aggregate, without loading or serializing employees.
+    //returning null after checkNotModified leaves the 304 prepared by spring in place.
+    //All of them are weak: one etag covers the json, smile, cbor and protobuf bodies (hence Vary: Accept),
+    //and tomcat does not gzip a response with a strong etag
+
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public List<Employee> getAllEmployees(){
-        return employeeService.getAllEmployees();
+    public ResponseEntity<List<Employee>> getAllEmployees(WebRequest webRequest){
+        varyByAccept(webRequest);
+        if(isConditional(webRequest)
+                && webRequest.checkNotModified(setETag(employeeService.getAllEmployeesSignature()))){
+            return null;
+        }
+        List<Employee> employees=employeeService.getAllEmployees();
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(setETag(employees))
+                .body(employees);
+    }
+
+    //keyset pagination on id: pass the returned nextCursor as ?after= to fetch the following page
+    @GetMapping(params = "limit")
+    public ResponseEntity<EmployeePage<Employee>> getEmployeePage(@RequestParam(name = "after", defaultValue = "0") Long after,
+                                                        @RequestParam("limit") int limit,
+                                                        WebRequest webRequest){
+        if(limit<1 || limit>MAX_PAGE_SIZE){
+            return ResponseEntity.badRequest().build();
+        }
+        varyByAccept(webRequest);
+        if(isConditional(webRequest)
+                && webRequest.checkNotModified(setETag(employeeService.getEmployeePageSignature(after,limit)))){
+            return null;
+        }
+        List<Employee> employees=employeeService.getEmployeesAfter(after,limit);
+        Long nextCursor=employees.size()<limit ? null : employees.get(employees.size()-1).getId();
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(setETag(employees))
+                .body(new EmployeePage<>(employees,nextCursor));
+    }
+
+    //same keyset page with only the requested fields (?fields=email,lastName), id is always included
+    @GetMapping(params = {"limit", "fields"})
+    public ResponseEntity<EmployeePage<Map<String,Object>>> getEmployeeFieldsPage(@RequestParam(name = "after", defaultValue = "0") Long after,
+                                                                                 @RequestParam("limit") int limit,
+                                                                                 @RequestParam("fields") List<String> fields){
+        if(limit<1 || limit>MAX_PAGE_SIZE || !EmployeeFieldsRepository.SELECTABLE_FIELDS.containsAll(fields)){
+            return ResponseEntity.badRequest().build();
+        }
+        List<Map<String,Object>> employees=employeeService.getEmployeeFieldsAfter(fields,after,limit);
+        Long nextCursor=employees.size()<limit ? null : (Long) employees.get(employees.size()-1).get("id");
+        return ResponseEntity.ok(new EmployeePage<>(employees,nextCursor));
+    }
+
+    @GetMapping("summaries")
+    public ResponseEntity<EmployeePage<EmployeeSummary>> getEmployeeSummaries(@RequestParam(name = "after", defaultValue = "0") Long after,
+                                                                              @RequestParam(name = "limit", defaultValue = "100") int limit){
+        if(limit<1 || limit>MAX_PAGE_SIZE){
+            return ResponseEntity.badRequest().build();
+        }
+        List<EmployeeSummary> employees=employeeService.getEmployeeSummariesAfter(after,limit);
+        Long nextCursor=employees.size()<limit ? null : employees.get(employees.size()-1).getId();
+        return ResponseEntity.ok(new EmployeePage<>(employees,nextCursor));
+    }
+
+    //served from the in-memory search index, no database round trip
+    @GetMapping("search")
+    public ResponseEntity<List<Employee>> searchEmployees(@RequestParam("q") String query,
+                                                          @RequestParam(name = "limit", defaultValue = "10") int limit){
+        if(limit<1 || limit>MAX_SEARCH_RESULTS){
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(employeeService.searchEmployees(query,limit));
+    }
+
+    //newline delimited json written row by row from a database cursor, memory stays flat regardless of table size
+    @GetMapping(value = "stream", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllEmployees(){
+        StreamingResponseBody body = outputStream -> {
+            try (SequenceWriter writer = objectMapper.writerFor(Employee.class)
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .withRootValueSeparator("\n")
+                    .writeValues(outputStream)) {
+                employeeService.streamAllEmployees(employee -> {
+                    try {
+                        writer.write(employee);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            outputStream.write('\n');
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
     }
 
     @GetMapping("{id}")
-    public ResponseEntity<Employee> getEmployeeById(@PathVariable("id") Long id){
+    public ResponseEntity<Employee> getEmployeeById(@PathVariable("id") Long id, WebRequest webRequest){
+        varyByAccept(webRequest);
+        if(isConditional(webRequest)){
+            Optional<Long> version=employeeService.getEmployeeVersion(id);
+            if(version.isPresent() && webRequest.checkNotModified(versionETag(version.get()))){
+                return null;
+            }
+        }
         return employeeService.getEmployeeById(id)
-                .map(ResponseEntity::ok)
+                .map(employee->{
+                    ResponseEntity.BodyBuilder response=ResponseEntity.ok().cacheControl(CacheControl.noCache());
+                    if(employee.getVersion()!=null){
+                        response.eTag(versionETag(employee.getVersion()));
+                    }
+                    return response.body(employee);
+                })
                 .orElseGet(()->ResponseEntity.notFound().build());
     }
 
@@ -51,9 +213,93 @@ public class EmployeeController {
                  }).orElseGet(()->ResponseEntity.notFound().build());
     }
 
+    //partial update in a single statement, send the version from the last read to guard against lost updates
+    @PatchMapping("{id}")
+    public ResponseEntity<Void> patchEmployee(@PathVariable("id") Long id,@RequestBody Employee employee){
+        if(employee.getFirstName()==null && employee.getLastName()==null && employee.getEmail()==null){
+            return ResponseEntity.badRequest().build();
+        }
+        employeeService.patchEmployee(id,employee);
+        return ResponseEntity.noContent().build();
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailure(OptimisticLockingFailureException e){
+        return new ResponseEntity<>("Employee was modified concurrently, reload it and retry",HttpStatus.CONFLICT);
+    }
+
     @DeleteMapping("{id}")
     public ResponseEntity<String> deleteEmployee(@PathVariable("id") Long id){
          employeeService.deleteEmployee(id);
          return new ResponseEntity<>("Employee with id: "+id+" deleted successfully",HttpStatus.OK);
     }
+
+    @PostMapping("batch")
+    public ResponseEntity<List<BulkItemResult>> createEmployees(@RequestBody List<Employee> employees){
+        if(employees.size()>MAX_BATCH_SIZE){
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(employeeService.saveEmployees(employees));
+    }
+
+    @PutMapping("batch")
+    public ResponseEntity<List<BulkItemResult>> updateEmployees(@RequestBody List<Employee> employees){
+        if(employees.size()>MAX_BATCH_SIZE){
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(employeeService.updateEmployees(employees));
+    }
+
+    @DeleteMapping("batch")
+    public ResponseEntity<List<BulkItemResult>> deleteEmployees(@RequestBody List<Long> ids){
+        if(ids.size()>MAX_BATCH_SIZE){
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(employeeService.deleteEmployees(ids));
+    }
+
+    //many employees by id or by email in one request, one result per key in request order
+    @PostMapping("lookup")
+    public ResponseEntity<List<EmployeeLookupResult>> lookupEmployees(@RequestBody EmployeeLookupRequest request){
+        List<Long> ids=request.getIds();
+        List<String> emails=request.getEmails();
+        if((ids==null)==(emails==null) || (ids!=null?ids.size():emails.size())>MAX_BATCH_SIZE){
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(ids!=null?employeeService.getEmployeesByIds(ids):employeeService.getEmployeesByEmails(emails));
+    }
+
+    private static boolean isConditional(WebRequest webRequest){
+        return webRequest.getHeader(HttpHeaders.IF_NONE_MATCH)!=null;
+    }
+
+    //on the servlet response, so that a 304 carries it as well
+    private static void varyByAccept(WebRequest webRequest){
+        if(webRequest instanceof ServletWebRequest servletWebRequest && servletWebRequest.getResponse()!=null){
+            servletWebRequest.getResponse().addHeader(HttpHeaders.VARY,HttpHeaders.ACCEPT);
+        }
+    }
+
+    private static String versionETag(long version){
+        return "W/\""+version+"\"";
+    }
+
+    private static String setETag(EmployeeSetSignature signature){
+        return setETag(signature.getRowCount(),signature.getIdSum(),signature.getVersionSum());
+    }
+
+    //same signature as EmployeeSetSignature, computed from rows that were loaded anyway
+    private static String setETag(List<Employee> employees){
+        long idSum=0;
+        long versionSum=0;
+        for(Employee employee:employees){
+            idSum+=employee.getId()==null ? 0 : employee.getId();
+            versionSum+=employee.getVersion()==null ? 0 : employee.getVersion();
+        }
+        return setETag(employees.size(),idSum,versionSum);
+    }
+
+    private static String setETag(long rowCount, long idSum, long versionSum){
+        return "W/\""+rowCount+"-"+idSum+"-"+versionSum+"\"";
+    }
     }
@@ -0,0 +1,54 @@
+package com.example.springboottesting.controller;
+
+import com.example.springboottesting.dto.ImportResult;
+import com.example.springboottesting.transfer.EmployeeFormat;
+import com.example.springboottesting.transfer.EmployeeTransferService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+//?format=csv (default) or ?format=binary, bodies are streamed in both directions
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/employees")
+public class EmployeeTransferController {
+
+    @Autowired
+    private EmployeeTransferService employeeTransferService;
+
+    @GetMapping("export")
+    public ResponseEntity<StreamingResponseBody> exportEmployees(@RequestParam(name = "format", defaultValue = "csv") String formatName){
+        return employeeTransferService.getFormat(formatName)
+                .map(format->ResponseEntity.ok()
+                        .contentType(MediaType.parseMediaType(format.getMediaType()))
+                        .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                                .filename("employees."+format.getName()).build().toString())
+                        .<StreamingResponseBody>body(outputStream->employeeTransferService.exportEmployees(format,outputStream)))
+                .orElseGet(()->ResponseEntity.badRequest().build());
+    }
+
+    @PostMapping("import")
+    public ResponseEntity<ImportResult> importEmployees(@RequestParam(name = "format", defaultValue = "csv") String formatName,
+                                                        InputStream body) throws IOException {
+        EmployeeFormat format=employeeTransferService.getFormat(formatName).orElse(null);
+        if(format==null){
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(employeeTransferService.importEmployees(format,body));
+    }
+
+    //malformed or truncated upload, chunks read before the error stay imported
+    @ExceptionHandler({IllegalArgumentException.class, EOFException.class})
+    public ResponseEntity<String> handleMalformedUpload(Exception e){
+        return ResponseEntity.badRequest().body(e.getMessage()==null ? "unexpected end of upload" : e.getMessage());
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.springboottesting.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+//measures replica lag with a heartbeat row: the primary stamps replica_heartbeat with the current time,
+//replication carries it over, and lag is how old the stamp read back from each replica is.
+//A replica that cannot be read or lags more than maxLag is not used for reads until it catches up
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    static final String CREATE_HEARTBEAT_TABLE =
+            "create table if not exists replica_heartbeat (id int primary key, beat_at bigint not null)";
+
+    private final JdbcTemplate primary;
+
+    private final Map<String, JdbcTemplate> replicas = new ConcurrentHashMap<>();
+
+    private final Duration maxLag;
+
+    private final Duration interval;
+
+    //replica key -> last measured lag in millis, absent when unknown or unreachable
+    private final Map<String, Long> lagMillis = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-lag-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReplicaLagMonitor(DataSource primary, Map<String, DataSource> replicas, Duration maxLag, Duration interval) {
+        this.primary = new JdbcTemplate(primary);
+        replicas.forEach((key, replica) -> this.replicas.put(key, new JdbcTemplate(replica)));
+        this.maxLag = maxLag;
+        this.interval = interval;
+    }
+
+    public void start() {
+        primary.execute(CREATE_HEARTBEAT_TABLE);
+        scheduler.scheduleWithFixedDelay(this::check, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public boolean isAvailable(String replica) {
+        Long lag = lagMillis.get(replica);
+        return lag != null && lag <= maxLag.toMillis();
+    }
+
+    public Map<String, Long> getLagMillis() {
+        return Map.copyOf(lagMillis);
+    }
+
+    void check() {
+        long now = System.currentTimeMillis();
+        try {
+            if (primary.update("update replica_heartbeat set beat_at = ? where id = 1", now) == 0) {
+                primary.update("insert into replica_heartbeat (id, beat_at) values (1, ?)", now);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not write replica heartbeat", e);
+        }
+        replicas.forEach((key, replica) -> {
+            try {
+                List<Long> beats = replica.queryForList("select beat_at from replica_heartbeat where id = 1", Long.class);
+                if (beats.isEmpty()) {
+                    lagMillis.remove(key);
+                } else {
+                    lagMillis.put(key, Math.max(0, now - beats.get(0)));
+                }
+            } catch (RuntimeException e) {
+                if (lagMillis.remove(key) != null) {
+                    log.warn("Replica {} is unreachable, reads go to the other replicas or the primary", key, e);
+                }
+            }
+        });
+    }
+}
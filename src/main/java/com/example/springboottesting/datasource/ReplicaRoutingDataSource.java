@@ -0,0 +1,71 @@
+package com.example.springboottesting.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+//connections for read only transactions come from the replicas in round robin, skipping the ones
+//the lag monitor does not trust; everything else, and reads when no replica is usable, go to the primary.
+//Has to sit behind a LazyConnectionDataSourceProxy: the read only flag of a transaction is only
+//known after the transaction manager asked for a connection
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final List<String> replicas;
+
+    private final ReplicaLagMonitor lagMonitor;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, ReplicaLagMonitor lagMonitor) {
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        this.replicas = new ArrayList<>(replicas.keySet());
+        this.lagMonitor = lagMonitor;
+    }
+
+    //connections opened by work come from the primary even for read only transactions, e.g. for reads that
+    //fill a cache, which would otherwise keep a replica's lag for as long as the entry lives. A connection
+    //the current transaction already holds is not switched
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_ONLY.remove();
+            } else {
+                PRIMARY_ONLY.set(previous);
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        //an empty app.datasource.replicas.urls leaves the primary alone
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || PRIMARY_ONLY.get() != null || replicas.isEmpty()) {
+            return PRIMARY;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            String replica = replicas.get((start + i) % replicas.size());
+            if (lagMonitor.isAvailable(replica)) {
+                return replica;
+            }
+        }
+        return PRIMARY;
+    }
+}
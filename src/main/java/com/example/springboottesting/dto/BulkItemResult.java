@@ -0,0 +1,22 @@
+package com.example.springboottesting.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//outcome of one item of a bulk request, index is the item position in the request body
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkItemResult {
+
+    private int index;
+
+    private Long id;
+
+    private BulkItemStatus status;
+
+    private String message;
+}
@@ -0,0 +1,11 @@
+package com.example.springboottesting.dto;
+
+public enum BulkItemStatus {
+    CREATED,
+    UPDATED,
+    DELETED,
+    CONFLICT,
+    FOUND,
+    NOT_FOUND,
+    INVALID
+}
@@ -0,0 +1,21 @@
+package com.example.springboottesting.dto;
+
+import com.example.springboottesting.model.EmployeeChange;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+//changes in sequence order, next is the ?since= of the following poll (the given since when nothing changed)
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmployeeChangePage {
+
+    private List<EmployeeChange> changes;
+
+    private long next;
+}
@@ -0,0 +1,20 @@
+package com.example.springboottesting.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+//body of POST /api/employees/lookup, either ids or emails
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmployeeLookupRequest {
+
+    private List<Long> ids;
+
+    private List<String> emails;
+}
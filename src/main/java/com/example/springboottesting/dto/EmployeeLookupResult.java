@@ -0,0 +1,24 @@
+package com.example.springboottesting.dto;
+
+import com.example.springboottesting.model.Employee;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//outcome of one key of a lookup: FOUND with the employee, NOT_FOUND, or INVALID for a null key.
+//email is only set for lookups by email
+@Setter
+@Getter
+@NoArgsConstructor
+public class EmployeeLookupResult extends BulkItemResult {
+
+    private String email;
+
+    private Employee employee;
+
+    public EmployeeLookupResult(int index, Long id, String email, BulkItemStatus status, String message, Employee employee) {
+        super(index, id, status, message);
+        this.email = email;
+        this.employee = employee;
+    }
+}
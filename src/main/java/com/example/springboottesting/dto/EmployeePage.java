@@ -0,0 +1,20 @@
+package com.example.springboottesting.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+//one keyset page of employees (entities, summaries or field maps), nextCursor is the id to pass as ?after= for the next page (null on the last page)
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmployeePage<T> {
+
+    private List<T> content;
+
+    private Long nextCursor;
+}
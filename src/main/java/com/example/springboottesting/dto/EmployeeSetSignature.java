@@ -0,0 +1,12 @@
+package com.example.springboottesting.dto;
+
+//aggregate over a set of employee rows that changes whenever a row in the set is inserted,
+//deleted or updated (versions only grow), used as a collection etag without loading the rows
+public interface EmployeeSetSignature {
+
+    long getRowCount();
+
+    long getIdSum();
+
+    long getVersionSum();
+}
@@ -0,0 +1,20 @@
+package com.example.springboottesting.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//id and name only, built by a jpql constructor expression so no entity is hydrated
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmployeeSummary {
+
+    private Long id;
+
+    private String firstName;
+
+    private String lastName;
+}
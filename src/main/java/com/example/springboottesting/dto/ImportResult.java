@@ -0,0 +1,26 @@
+package com.example.springboottesting.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//totals of an import, per row outcomes are not kept so memory does not grow with the upload
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportResult {
+
+    private long rows;
+
+    private long created;
+
+    private long conflicts;
+
+    private long invalid;
+
+    private long elapsedMillis;
+
+    private long rowsPerSecond;
+}
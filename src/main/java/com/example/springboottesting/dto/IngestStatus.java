@@ -0,0 +1,9 @@
+package com.example.springboottesting.dto;
+
+public enum IngestStatus {
+    PENDING,
+    CREATED,
+    CONFLICT,
+    INVALID,
+    FAILED
+}
@@ -0,0 +1,22 @@
+package com.example.springboottesting.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+//state of an asynchronously accepted create, id is set once the employee is written
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class IngestTicket {
+
+    private String trackingId;
+
+    private IngestStatus status;
+
+    private Long id;
+
+    private String message;
+}
@@ -0,0 +1,38 @@
+package com.example.springboottesting.event;
+
+import com.example.springboottesting.model.Employee;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//published by EmployeeServiceImpl for every write, listeners that keep derived state in sync
+//should use @TransactionalEventListener so they only see committed changes
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class EmployeeChangedEvent {
+
+    public enum Type {
+        SAVED,
+        //employee only carries the non null patched fields
+        PATCHED,
+        DELETED
+    }
+
+    private final Type type;
+
+    private final Long id;
+
+    private final Employee employee;
+
+    public static EmployeeChangedEvent saved(Employee employee) {
+        return new EmployeeChangedEvent(Type.SAVED, employee.getId(), employee);
+    }
+
+    public static EmployeeChangedEvent patched(Long id, Employee patch) {
+        return new EmployeeChangedEvent(Type.PATCHED, id, patch);
+    }
+
+    public static EmployeeChangedEvent deleted(Long id) {
+        return new EmployeeChangedEvent(Type.DELETED, id, null);
+    }
+}
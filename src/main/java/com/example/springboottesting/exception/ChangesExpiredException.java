@@ -0,0 +1,12 @@
+package com.example.springboottesting.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.GONE)
+public class ChangesExpiredException extends RuntimeException{
+
+    public ChangesExpiredException(String message) {
+        super(message);
+    }
+}
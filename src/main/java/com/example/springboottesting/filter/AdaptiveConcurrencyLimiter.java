@@ -0,0 +1,69 @@
+package com.example.springboottesting.filter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+//concurrency limit found at runtime (additive increase, multiplicative decrease): every request answered
+//within the target latency while the limit is in use raises it by one, a slower one cuts it by backoffRatio.
+//only one cut per round trip, requests that started before the last cut do not cut again
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long targetLatencyNanos;
+
+    private final double backoffRatio;
+
+    private final AtomicInteger limit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicLong lastDecreaseNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long targetLatencyNanos, double backoffRatio) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.backoffRatio = backoffRatio;
+        this.limit = new AtomicInteger(initialLimit);
+        this.lastDecreaseNanos = new AtomicLong(System.nanoTime());
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    //sample=false only frees the slot, for calls whose latency says nothing about load (exports, streams)
+    public void release(long startNanos, long endNanos, boolean sample) {
+        int current = inFlight.getAndDecrement();
+        if (!sample) {
+            return;
+        }
+        if (endNanos - startNanos > targetLatencyNanos) {
+            long lastDecrease = lastDecreaseNanos.get();
+            if (startNanos - lastDecrease > 0 && lastDecreaseNanos.compareAndSet(lastDecrease, endNanos)) {
+                limit.updateAndGet(value -> Math.max(minLimit, (int) (value * backoffRatio)));
+            }
+        } else if (current * 2 >= limit.get()) {
+            limit.updateAndGet(value -> Math.min(maxLimit, value + 1));
+        }
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.springboottesting.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+//per client token buckets in front of /api/employees (429 when a client is over its budget), then the
+//adaptive concurrency limit shared by all clients (503 once latency shows the server is saturated).
+//expensive calls (whole table, bulk, lookup, search, export/import) draw from a smaller budget than point reads
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String BASE_PATH = "/api/employees";
+
+    private static final Set<String> EXPENSIVE_PATHS = Set.of(BASE_PATH + "/batch", BASE_PATH + "/lookup",
+            BASE_PATH + "/search", BASE_PATH + "/stream", BASE_PATH + "/export", BASE_PATH + "/import");
+
+    private final String clientHeader;
+
+    //only behind a proxy or auth layer that sets the header itself, clients could otherwise pick a fresh
+    //budget per request by sending a new value
+    private final boolean trustClientHeader;
+
+    private final Budget pointBudget;
+
+    private final Budget expensiveBudget;
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    //idle clients are dropped, a flood of client ids cannot grow the map without bound
+    private final Cache<String, ClientBuckets> clients;
+
+    private final Counter rateLimited;
+
+    private final Counter shed;
+
+    public RateLimitFilter(String clientHeader, boolean trustClientHeader, Budget pointBudget, Budget expensiveBudget,
+                           int maxClients, AdaptiveConcurrencyLimiter limiter, MeterRegistry meterRegistry) {
+        this.clientHeader = clientHeader;
+        this.trustClientHeader = trustClientHeader;
+        this.pointBudget = pointBudget;
+        this.expensiveBudget = expensiveBudget;
+        this.limiter = limiter;
+        this.clients = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofMinutes(1))
+                .build();
+        this.rateLimited = Counter.builder("employee.requests.rejected").tag("reason", "rate_limit").register(meterRegistry);
+        this.shed = Counter.builder("employee.requests.rejected").tag("reason", "overload").register(meterRegistry);
+        Gauge.builder("employee.requests.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit).register(meterRegistry);
+        Gauge.builder("employee.requests.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight).register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean expensive = isExpensive(request);
+        long now = System.nanoTime();
+        ClientBuckets buckets = clients.get(clientKey(request), key -> new ClientBuckets(pointBudget, expensiveBudget, now));
+        long waitNanos = (expensive ? buckets.expensive : buckets.point).tryConsume(now);
+        if (waitNanos > 0) {
+            rateLimited.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L))));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Rate limit exceeded");
+            return;
+        }
+        if (!limiter.tryAcquire()) {
+            shed.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Server overloaded");
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            //streams and exports return here once they go async, their latency is not a load signal
+            limiter.release(start, System.nanoTime(), !expensive);
+        }
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        if (!trustClientHeader) {
+            return request.getRemoteAddr();
+        }
+        String client = request.getHeader(clientHeader);
+        return client == null || client.isBlank() ? request.getRemoteAddr() : client;
+    }
+
+    static boolean isExpensive(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        if (path.equals(BASE_PATH)) {
+            //the whole table, keyset pages (limit) are bounded
+            return "GET".equals(request.getMethod()) && request.getParameter("limit") == null;
+        }
+        return EXPENSIVE_PATHS.contains(path);
+    }
+
+    public record Budget(double permitsPerSecond, int burst) {
+    }
+
+    private static final class ClientBuckets {
+
+        private final TokenBucket point;
+
+        private final TokenBucket expensive;
+
+        private ClientBuckets(Budget pointBudget, Budget expensiveBudget, long nowNanos) {
+            this.point = new TokenBucket(pointBudget.permitsPerSecond(), pointBudget.burst(), nowNanos);
+            this.expensive = new TokenBucket(expensiveBudget.permitsPerSecond(), expensiveBudget.burst(), nowNanos);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.springboottesting.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+//token bucket kept as a single timestamp (generic cell rate algorithm): the time at which the bucket would be
+//full again. Taking a token is one compare-and-set, there is no refill thread and no lock
+final class TokenBucket {
+
+    private final long intervalNanos;
+
+    private final long toleranceNanos;
+
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(double permitsPerSecond, int burst, long nowNanos) {
+        this.intervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+        this.toleranceNanos = intervalNanos * burst;
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    //0 when a token was taken, otherwise the nanos until the next one is available
+    long tryConsume(long nowNanos) {
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long next = Math.max(arrival - nowNanos, 0) + nowNanos + intervalNanos;
+            long wait = next - nowNanos - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+}
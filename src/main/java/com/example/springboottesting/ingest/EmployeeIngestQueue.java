@@ -0,0 +1,167 @@
+package com.example.springboottesting.ingest;
+
+import com.example.springboottesting.dto.BulkItemResult;
+import com.example.springboottesting.dto.IngestStatus;
+import com.example.springboottesting.dto.IngestTicket;
+import com.example.springboottesting.exception.EmployeeAlreadyExistsException;
+import com.example.springboottesting.model.Employee;
+import com.example.springboottesting.service.EmployeeService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//write-behind for POST /api/employees: request threads only enqueue, a single writer thread drains
+//the queue in batches through EmployeeService.saveEmployees (one transaction and jdbc batch per drain)
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(name = "app.ingest.async.enabled", havingValue = "true")
+public class EmployeeIngestQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(EmployeeIngestQueue.class);
+
+    private final EmployeeService employeeService;
+
+    private final int capacity;
+
+    private final int batchSize;
+
+    private final long drainIntervalMillis;
+
+    //lock free queue, bounded by reserving a slot in size before offering
+    private final ConcurrentLinkedQueue<PendingEmployee> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    //finished tickets are only kept for a while, nobody polls forever
+    private final Cache<String, IngestTicket> tickets;
+
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "employee-ingest-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public EmployeeIngestQueue(EmployeeService employeeService, MeterRegistry meterRegistry,
+                               @Value("${app.ingest.queue-capacity}") int capacity,
+                               @Value("${app.ingest.batch-size}") int batchSize,
+                               @Value("${app.ingest.drain-interval-ms}") long drainIntervalMillis,
+                               @Value("${app.ingest.ticket-retention}") Duration ticketRetention) {
+        this.employeeService = employeeService;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.drainIntervalMillis = drainIntervalMillis;
+        this.tickets = Caffeine.newBuilder().expireAfterWrite(ticketRetention).build();
+        Gauge.builder("employee.ingest.queue.size", size, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.scheduleWithFixedDelay(this::drain, drainIntervalMillis, drainIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    //stops accepting the scheduled drains and writes whatever is still queued
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(30, TimeUnit.SECONDS);
+        drain();
+    }
+
+    //empty when the queue is full, the caller should answer 429
+    public Optional<IngestTicket> submit(Employee employee) {
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            return Optional.empty();
+        }
+        IngestTicket ticket = new IngestTicket(UUID.randomUUID().toString(), IngestStatus.PENDING, null, null);
+        tickets.put(ticket.getTrackingId(), ticket);
+        queue.offer(new PendingEmployee(ticket.getTrackingId(), employee));
+        return Optional.of(ticket);
+    }
+
+    public Optional<IngestTicket> getTicket(String trackingId) {
+        return Optional.ofNullable(tickets.getIfPresent(trackingId));
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    synchronized void drain() {
+        List<PendingEmployee> batch = new ArrayList<>(batchSize);
+        PendingEmployee pending;
+        do {
+            batch.clear();
+            while (batch.size() < batchSize && (pending = queue.poll()) != null) {
+                batch.add(pending);
+            }
+            size.addAndGet(-batch.size());
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    private void write(List<PendingEmployee> batch) {
+        List<Employee> employees = new ArrayList<>(batch.size());
+        for (PendingEmployee pending : batch) {
+            employees.add(pending.employee());
+        }
+        List<BulkItemResult> results;
+        try {
+            results = employeeService.saveEmployees(employees);
+        } catch (RuntimeException e) {
+            //e.g. an email taken by a synchronous create in between, only the offending items should fail
+            log.warn("Batch of {} queued employees failed, writing them one by one", batch.size(), e);
+            batch.forEach(this::writeOne);
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            BulkItemResult result = results.get(i);
+            complete(batch.get(i).trackingId(), switch (result.getStatus()) {
+                case CREATED -> IngestStatus.CREATED;
+                case CONFLICT -> IngestStatus.CONFLICT;
+                case INVALID -> IngestStatus.INVALID;
+                default -> IngestStatus.FAILED;
+            }, result.getId(), result.getMessage());
+        }
+    }
+
+    private void writeOne(PendingEmployee pending) {
+        try {
+            Employee savedEmployee = employeeService.saveEmployee(pending.employee());
+            complete(pending.trackingId(), IngestStatus.CREATED, savedEmployee.getId(), null);
+        } catch (EmployeeAlreadyExistsException e) {
+            complete(pending.trackingId(), IngestStatus.CONFLICT, null, e.getMessage());
+        } catch (RuntimeException e) {
+            complete(pending.trackingId(), IngestStatus.FAILED, null, e.getMessage());
+        }
+    }
+
+    private void complete(String trackingId, IngestStatus status, Long id, String message) {
+        tickets.put(trackingId, new IngestTicket(trackingId, status, id, message));
+    }
+
+    private record PendingEmployee(String trackingId, Employee employee) {
+    }
+}
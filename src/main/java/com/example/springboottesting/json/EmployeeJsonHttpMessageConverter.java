@@ -0,0 +1,162 @@
+package com.example.springboottesting.json;
+
+import com.example.springboottesting.event.EmployeeChangedEvent;
+import com.example.springboottesting.model.Employee;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+
+//writes Employee and Collection<Employee> response bodies from utf-8 json cached per employee id and version:
+//a list is the cached fragments copied straight into the response stream, only new versions go through jackson.
+//picked up by boot ahead of the jackson converter, other bodies and all request bodies are left to jackson
+//(read() decodes with the same object mapper for callers that use the converter directly)
+@Component
+@Profile("!reactive")
+//ahead of the binary converters, a request without a specific Accept header gets json
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class EmployeeJsonHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectWriter employeeWriter;
+
+    private final Cache<Long, EncodedEmployee> encodedEmployees;
+
+    public EmployeeJsonHttpMessageConverter(ObjectMapper objectMapper, @Value("${app.json.cache.max-size}") long maxSize) {
+        super(MediaType.APPLICATION_JSON);
+        this.objectMapper = objectMapper;
+        this.employeeWriter = objectMapper.writerFor(Employee.class);
+        this.encodedEmployees = Caffeine.newBuilder().maximumSize(maxSize).build();
+    }
+
+    //the version check already catches updates, this frees the entry of a deleted employee early
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        if (event.getId() != null) {
+            encodedEmployees.invalidate(event.getId());
+        }
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Employee.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (type instanceof ParameterizedType parameterizedType
+                && parameterizedType.getRawType() instanceof Class<?> rawType
+                && Collection.class.isAssignableFrom(rawType)) {
+            return parameterizedType.getActualTypeArguments()[0] == Employee.class && canWrite(mediaType);
+        }
+        return super.canWrite(type, clazz, mediaType);
+    }
+
+    //asked with the raw class (ArrayList) once canWrite has accepted the generic type
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return supports(clazz) || Collection.class.isAssignableFrom(clazz) ? getSupportedMediaTypes() : List.of();
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return readJson(GenericTypeResolver.resolveType(type, contextClass), inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return readJson(clazz, inputMessage);
+    }
+
+    private Object readJson(Type type, HttpInputMessage inputMessage) throws IOException {
+        try {
+            return objectMapper.readValue(inputMessage.getBody(), objectMapper.constructType(type));
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException("JSON parse error: " + e.getOriginalMessage(), e, inputMessage);
+        }
+    }
+
+    //a single employee sets its length in writeInternal from the bytes it writes, so it is encoded only once
+    @Override
+    protected Long getContentLength(Object body, MediaType contentType) {
+        return null;
+    }
+
+    @Override
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (body instanceof Employee employee) {
+            byte[] json = toJson(employee);
+            //headers can still be changed until the body is opened
+            outputMessage.getHeaders().setContentLength(json.length);
+            outputMessage.getBody().write(json);
+            return;
+        }
+        OutputStream out = outputMessage.getBody();
+        out.write('[');
+        boolean first = true;
+        for (Object employee : (Collection<?>) body) {
+            if (!first) {
+                out.write(',');
+            }
+            out.write(toJson((Employee) employee));
+            first = false;
+        }
+        out.write(']');
+    }
+
+    public byte[] toJson(Employee employee) {
+        if (employee.getId() == null || employee.getVersion() == null) {
+            return encode(employee);
+        }
+        EncodedEmployee encoded = encodedEmployees.getIfPresent(employee.getId());
+        if (encoded != null && encoded.version() == employee.getVersion()) {
+            return encoded.json();
+        }
+        byte[] json = encode(employee);
+        encodedEmployees.put(employee.getId(), new EncodedEmployee(employee.getVersion(), json));
+        return json;
+    }
+
+    private byte[] encode(Employee employee) {
+        try {
+            return employeeWriter.writeValueAsBytes(employee);
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotWritableException("Could not write employee " + employee.getId(), e);
+        }
+    }
+
+    private record EncodedEmployee(long version, byte[] json) {
+    }
+}
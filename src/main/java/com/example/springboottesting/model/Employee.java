@@ -2,18 +2,35 @@ package com.example.springboottesting.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 @Setter
 @Getter
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+//toBuilder().build() is a detached copy, see EmployeeServiceImpl
+@Builder(toBuilder = true)
 @Entity
-@Table(name = "employees")
+@Table(name = "employees",
+        uniqueConstraints = @UniqueConstraint(name = Employee.EMAIL_UNIQUE_CONSTRAINT, columnNames = "email"),
+        indexes = @Index(name = "idx_employees_first_name_last_name", columnList = "first_name,last_name"))
+//mapping for the r2dbc repository used by the reactive profile
+@org.springframework.data.relational.core.mapping.Table("employees")
 public class Employee {
 
+    public static final String EMAIL_UNIQUE_CONSTRAINT = "uk_employees_email";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @org.springframework.data.annotation.Id
+    //pooled sequence instead of identity so hibernate can batch inserts, the shard is appended in the sharded profile
+    @GeneratedValue(generator = "employees_seq")
+    @GenericGenerator(name = "employees_seq", strategy = "com.example.springboottesting.sharding.ShardAwareSequenceGenerator",
+            parameters = {
+                    @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "employees_seq"),
+                    @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50")
+            })
     private Long id;
 
     @Column(name = "first_name",nullable = false)
@@ -24,4 +41,8 @@ public class Employee {
 
     @Column(nullable = false)
     private String email;
+
+    //optimistic lock, incremented on every update
+    @Version
+    private Long version;
 }
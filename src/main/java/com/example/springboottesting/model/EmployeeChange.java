@@ -0,0 +1,48 @@
+package com.example.springboottesting.model;
+
+import com.example.springboottesting.event.EmployeeChangedEvent;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+//outbox row written in the transaction of every employee write, see EmployeeChangeOutbox.
+//sequence stays null until EmployeeChangeFeed publishes the committed row
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "employee_changes",
+        uniqueConstraints = @UniqueConstraint(name = "uk_employee_changes_sequence", columnNames = "sequence_number"))
+public class EmployeeChange {
+
+    //identity rather than a pooled sequence: two writes of the same employee are serialized by its row lock,
+    //so the later one also gets the higher id, whichever instance wrote it. The outbox batches the inserts
+    //with jdbc, as hibernate does not batch identity inserts
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @JsonIgnore
+    private Long id;
+
+    @Column(name = "sequence_number")
+    private Long sequence;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private EmployeeChangedEvent.Type type;
+
+    @Column(name = "employee_id", nullable = false)
+    private Long employeeId;
+
+    //the employee as json after the change, only the patched fields for PATCHED, null for DELETED
+    @JsonRawValue
+    @Column(length = 4000)
+    private String employee;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+}
@@ -0,0 +1,189 @@
+package com.example.springboottesting.protobuf;
+
+import com.example.springboottesting.model.Employee;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+//Employee and Collection<Employee> as the Employee and EmployeeList messages of proto/employee.proto, for
+//Accept/Content-Type application/x-protobuf. Encoded with the protobuf runtime directly instead of classes
+//generated by protoc, so the build needs no protoc binary; null fields are left out
+@Component
+@Profile("!reactive")
+public class EmployeeProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType APPLICATION_X_PROTOBUF = new MediaType("application", "x-protobuf");
+
+    public static final MediaType APPLICATION_PROTOBUF = new MediaType("application", "protobuf");
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int LIST_EMPLOYEES = 1;
+
+    private static final int ID = 1;
+
+    private static final int FIRST_NAME = 2;
+
+    private static final int LAST_NAME = 3;
+
+    private static final int EMAIL = 4;
+
+    private static final int VERSION = 5;
+
+    public EmployeeProtobufHttpMessageConverter() {
+        super(APPLICATION_X_PROTOBUF, APPLICATION_PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Employee.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return isEmployeeCollection(type) ? canWrite(mediaType) : super.canWrite(type, clazz, mediaType);
+    }
+
+    //asked with the raw class (ArrayList) once canWrite has accepted the generic type
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return supports(clazz) || Collection.class.isAssignableFrom(clazz) ? getSupportedMediaTypes() : List.of();
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return isEmployeeCollection(type) ? canRead(mediaType) : super.canRead(type, contextClass, mediaType);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return isEmployeeCollection(type) ? readEmployees(inputMessage.getBody()) : readEmployee(inputMessage.getBody());
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return readEmployee(inputMessage.getBody());
+    }
+
+    @Override
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (body instanceof Employee employee) {
+            writeEmployee(employee, outputMessage.getBody());
+        } else {
+            writeEmployees((Collection<?>) body, outputMessage.getBody());
+        }
+    }
+
+    public static void writeEmployee(Employee employee, OutputStream out) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(out, BUFFER_SIZE);
+        writeFields(employee, output);
+        output.flush();
+    }
+
+    public static void writeEmployees(Collection<?> employees, OutputStream out) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(out, BUFFER_SIZE);
+        for (Object element : employees) {
+            Employee employee = (Employee) element;
+            output.writeTag(LIST_EMPLOYEES, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(computeSize(employee));
+            writeFields(employee, output);
+        }
+        output.flush();
+    }
+
+    public static Employee readEmployee(InputStream in) throws IOException {
+        return readFields(CodedInputStream.newInstance(in));
+    }
+
+    public static List<Employee> readEmployees(InputStream in) throws IOException {
+        CodedInputStream input = CodedInputStream.newInstance(in);
+        List<Employee> employees = new ArrayList<>();
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            if (WireFormat.getTagFieldNumber(tag) == LIST_EMPLOYEES) {
+                int limit = input.pushLimit(input.readRawVarint32());
+                employees.add(readFields(input));
+                input.popLimit(limit);
+            } else {
+                input.skipField(tag);
+            }
+        }
+        return employees;
+    }
+
+    private static boolean isEmployeeCollection(Type type) {
+        return type instanceof ParameterizedType parameterizedType
+                && parameterizedType.getRawType() instanceof Class<?> rawType
+                && Collection.class.isAssignableFrom(rawType)
+                && parameterizedType.getActualTypeArguments()[0] == Employee.class;
+    }
+
+    private static void writeFields(Employee employee, CodedOutputStream output) throws IOException {
+        if (employee.getId() != null) {
+            output.writeInt64(ID, employee.getId());
+        }
+        if (employee.getFirstName() != null) {
+            output.writeString(FIRST_NAME, employee.getFirstName());
+        }
+        if (employee.getLastName() != null) {
+            output.writeString(LAST_NAME, employee.getLastName());
+        }
+        if (employee.getEmail() != null) {
+            output.writeString(EMAIL, employee.getEmail());
+        }
+        if (employee.getVersion() != null) {
+            output.writeInt64(VERSION, employee.getVersion());
+        }
+    }
+
+    private static int computeSize(Employee employee) {
+        int size = 0;
+        if (employee.getId() != null) {
+            size += CodedOutputStream.computeInt64Size(ID, employee.getId());
+        }
+        if (employee.getFirstName() != null) {
+            size += CodedOutputStream.computeStringSize(FIRST_NAME, employee.getFirstName());
+        }
+        if (employee.getLastName() != null) {
+            size += CodedOutputStream.computeStringSize(LAST_NAME, employee.getLastName());
+        }
+        if (employee.getEmail() != null) {
+            size += CodedOutputStream.computeStringSize(EMAIL, employee.getEmail());
+        }
+        if (employee.getVersion() != null) {
+            size += CodedOutputStream.computeInt64Size(VERSION, employee.getVersion());
+        }
+        return size;
+    }
+
+    private static Employee readFields(CodedInputStream input) throws IOException {
+        Employee employee = new Employee();
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case ID -> employee.setId(input.readInt64());
+                case FIRST_NAME -> employee.setFirstName(input.readString());
+                case LAST_NAME -> employee.setLastName(input.readString());
+                case EMAIL -> employee.setEmail(input.readString());
+                case VERSION -> employee.setVersion(input.readInt64());
+                default -> input.skipField(tag);
+            }
+        }
+        return employee;
+    }
+}
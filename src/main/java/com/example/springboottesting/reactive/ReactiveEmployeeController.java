@@ -0,0 +1,90 @@
+package com.example.springboottesting.reactive;
+
+import com.example.springboottesting.dto.EmployeePage;
+import com.example.springboottesting.model.Employee;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+//same /api/employees contract as EmployeeController on webflux, active with the reactive profile
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/employees")
+public class ReactiveEmployeeController {
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private final ReactiveEmployeeService employeeService;
+
+    public ReactiveEmployeeController(ReactiveEmployeeService employeeService) {
+        this.employeeService = employeeService;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Employee> createEmployee(@RequestBody Employee employee){
+        return employeeService.saveEmployee(employee);
+    }
+
+    //encoded as a json array element by element, the table is never collected into a list
+    @GetMapping
+    public Flux<Employee> getAllEmployees(){
+        return employeeService.getAllEmployees();
+    }
+
+    @GetMapping(params = "limit")
+    public Mono<ResponseEntity<EmployeePage<Employee>>> getEmployeePage(@RequestParam(name = "after", defaultValue = "0") Long after,
+                                                              @RequestParam("limit") int limit){
+        if(limit<1 || limit>MAX_PAGE_SIZE){
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return employeeService.getEmployeesAfter(after,limit)
+                .collectList()
+                .map(employees -> {
+                    Long nextCursor=employees.size()<limit ? null : employees.get(employees.size()-1).getId();
+                    return ResponseEntity.ok(new EmployeePage<>(employees,nextCursor));
+                });
+    }
+
+    //newline delimited json, rows are pulled from the database as the client consumes them
+    @GetMapping(value = "stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Employee> streamAllEmployees(){
+        return employeeService.getAllEmployees();
+    }
+
+    @GetMapping("{id}")
+    public Mono<ResponseEntity<Employee>> getEmployeeById(@PathVariable("id") Long id){
+        return employeeService.getEmployeeById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @PutMapping("{id}")
+    public Mono<ResponseEntity<Employee>> updateEmployee(@PathVariable("id") Long id,@RequestBody Employee employee){
+        return employeeService.getEmployeeById(id)
+                .flatMap(savedEmployee->{
+                    savedEmployee.setFirstName(employee.getFirstName());
+                    savedEmployee.setLastName(employee.getLastName());
+                    savedEmployee.setEmail(employee.getEmail());
+                    return employeeService.updateEmployee(savedEmployee);
+                })
+                .map(updatedEmployee->new ResponseEntity<>(updatedEmployee,HttpStatus.OK))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailure(OptimisticLockingFailureException e){
+        return new ResponseEntity<>("Employee was modified concurrently, reload it and retry",HttpStatus.CONFLICT);
+    }
+
+    @DeleteMapping("{id}")
+    public Mono<ResponseEntity<String>> deleteEmployee(@PathVariable("id") Long id){
+        return employeeService.deleteEmployee(id)
+                .thenReturn(new ResponseEntity<>("Employee with id: "+id+" deleted successfully",HttpStatus.OK));
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.springboottesting.reactive;
+
+import com.example.springboottesting.model.Employee;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+//r2dbc counterpart of EmployeeRepository. Written against R2dbcEntityTemplate rather than as a
+//spring data interface because Employee is also a jpa @Entity, which makes the jpa repository
+//scan claim any repository interface for it
+@Repository
+@Profile("reactive")
+public class ReactiveEmployeeRepository {
+
+    private final R2dbcEntityTemplate template;
+
+    private final TransactionalOperator transactionalOperator;
+
+    public ReactiveEmployeeRepository(R2dbcEntityTemplate template, ReactiveTransactionManager transactionManager) {
+        this.template = template;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+    }
+
+    //the version column is maintained here, spring data relational's @Version cannot be combined with the jpa one.
+    //an update only applies while the row still has the version of employee (a null version skips the check):
+    //a stale version fails with OptimisticLockingFailureException, a missing row completes empty.
+    //the version is incremented in sql, so an update without a version still moves it forward
+    public Mono<Employee> save(Employee employee) {
+        if (employee.getId() == null) {
+            employee.setVersion(0L);
+            return template.insert(employee);
+        }
+        Long version = employee.getVersion();
+        DatabaseClient.GenericExecuteSpec update = template.getDatabaseClient().sql("update employees set first_name = :firstName,"
+                        + " last_name = :lastName, email = :email, version = version + 1 where id = :id"
+                        + (version == null ? "" : " and version = :version"))
+                .bind("id", employee.getId());
+        update = bind(update, "firstName", employee.getFirstName());
+        update = bind(update, "lastName", employee.getLastName());
+        update = bind(update, "email", employee.getEmail());
+        if (version != null) {
+            update = update.bind("version", version);
+        }
+        return update.fetch().rowsUpdated()
+                .flatMap(updatedRows -> {
+                    if (updatedRows > 0) {
+                        //read in the transaction of the update, whose row lock keeps other writers out
+                        Mono<Long> nextVersion = version != null ? Mono.just(version + 1) : template.getDatabaseClient()
+                                .sql("select version from employees where id = :id")
+                                .bind("id", employee.getId())
+                                .map(row -> row.get("version", Long.class))
+                                .one();
+                        return nextVersion.map(next -> {
+                            employee.setVersion(next);
+                            return employee;
+                        });
+                    }
+                    if (version == null) {
+                        return Mono.empty();
+                    }
+                    return template.exists(Query.query(Criteria.where("id").is(employee.getId())), Employee.class)
+                            .flatMap(exists -> exists
+                                    ? Mono.error(new OptimisticLockingFailureException(
+                                            "Employee " + employee.getId() + " was modified concurrently"))
+                                    : Mono.empty());
+                })
+                .as(transactionalOperator::transactional);
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, String name, String value) {
+        return value == null ? spec.bindNull(name, String.class) : spec.bind(name, value);
+    }
+
+    public Mono<Employee> findById(Long id) {
+        return template.selectOne(Query.query(Criteria.where("id").is(id)), Employee.class);
+    }
+
+    public Mono<Employee> findByEmail(String email) {
+        return template.selectOne(Query.query(Criteria.where("email").is(email)), Employee.class);
+    }
+
+    public Flux<Employee> findAll() {
+        return template.select(Query.empty().sort(Sort.by("id")), Employee.class);
+    }
+
+    //keyset page on id
+    public Flux<Employee> findPageAfter(Long after, int limit) {
+        return template.select(Query.query(Criteria.where("id").greaterThan(after))
+                .sort(Sort.by("id"))
+                .limit(limit), Employee.class);
+    }
+
+    public Mono<Void> deleteById(Long id) {
+        return template.delete(Query.query(Criteria.where("id").is(id)), Employee.class).then();
+    }
+
+    public Mono<Void> deleteAll() {
+        return template.delete(Query.empty(), Employee.class).then();
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.springboottesting.reactive;
+
+import com.example.springboottesting.model.Employee;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveEmployeeService {
+
+   Mono<Employee> saveEmployee(Employee employee);
+
+   Flux<Employee> getAllEmployees();
+
+   Flux<Employee> getEmployeesAfter(Long afterId, int limit);
+
+   Mono<Employee> getEmployeeById(Long id);
+
+   Mono<Employee> updateEmployee(Employee updatedEmployee);
+
+   Mono<Void> deleteEmployee(Long id);
+}
@@ -0,0 +1,63 @@
+package com.example.springboottesting.reactive;
+
+import com.example.springboottesting.exception.EmployeeAlreadyExistsException;
+import com.example.springboottesting.model.Employee;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@Profile("reactive")
+public class ReactiveEmployeeServiceImpl implements ReactiveEmployeeService {
+
+    private final ReactiveEmployeeRepository employeeRepository;
+
+    public ReactiveEmployeeServiceImpl(ReactiveEmployeeRepository employeeRepository) {
+        this.employeeRepository = employeeRepository;
+    }
+
+    //duplicates are detected by the unique constraint on email
+    @Override
+    public Mono<Employee> saveEmployee(Employee employee) {
+        return employeeRepository.save(employee)
+                .onErrorMap(this::isEmailConflict,
+                        e -> new EmployeeAlreadyExistsException("Employee already exists with given email : " + employee.getEmail(), e));
+    }
+
+    @Override
+    public Flux<Employee> getAllEmployees() {
+        return employeeRepository.findAll();
+    }
+
+    @Override
+    public Flux<Employee> getEmployeesAfter(Long afterId, int limit) {
+        return employeeRepository.findPageAfter(afterId, limit);
+    }
+
+    @Override
+    public Mono<Employee> getEmployeeById(Long id) {
+        return employeeRepository.findById(id);
+    }
+
+    @Override
+    public Mono<Employee> updateEmployee(Employee updatedEmployee) {
+        return employeeRepository.save(updatedEmployee)
+                .onErrorMap(this::isEmailConflict,
+                        e -> new EmployeeAlreadyExistsException("Employee already exists with given email : " + updatedEmployee.getEmail(), e));
+    }
+
+    @Override
+    public Mono<Void> deleteEmployee(Long id) {
+        return employeeRepository.deleteById(id);
+    }
+
+    private boolean isEmailConflict(Throwable e) {
+        if (!(e instanceof DataIntegrityViolationException)) {
+            return false;
+        }
+        String message = ((DataIntegrityViolationException) e).getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase().contains(Employee.EMAIL_UNIQUE_CONSTRAINT);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.springboottesting.repository;
+
+import com.example.springboottesting.model.EmployeeChange;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface EmployeeChangeRepository extends JpaRepository<EmployeeChange, Long> {
+
+    //locked, so a relay on another instance waits instead of numbering the same rows
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from EmployeeChange c where c.sequence is null order by c.id")
+    List<EmployeeChange> findUnpublished(Pageable pageable);
+
+    @Query("select c from EmployeeChange c where c.sequence>:since order by c.sequence")
+    List<EmployeeChange> findPublishedAfter(@Param("since") long since, Pageable pageable);
+
+    @Query("select max(c.sequence) from EmployeeChange c")
+    Optional<Long> findLastSequence();
+
+    @Query("select min(c.sequence) from EmployeeChange c")
+    Optional<Long> findFirstSequence();
+
+    @Modifying
+    @Query("delete from EmployeeChange c where c.changedAt<:before and c.sequence<:keepFrom")
+    int deletePublishedBefore(@Param("before") Instant before, @Param("keepFrom") long keepFrom);
+}
@@ -0,0 +1,15 @@
+package com.example.springboottesting.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+//custom fragment of EmployeeRepository selecting only the requested columns
+public interface EmployeeFieldsRepository {
+
+    Set<String> SELECTABLE_FIELDS = Set.of("id", "firstName", "lastName", "email");
+
+    //keyset page on id, each row is a map of field name to value in the requested order
+    List<Map<String, Object>> findFieldsAfter(Collection<String> fields, Long after, int limit);
+}
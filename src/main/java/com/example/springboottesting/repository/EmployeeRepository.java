@@ -1,16 +1,31 @@
 package com.example.springboottesting.repository;
 
+import com.example.springboottesting.dto.EmployeeSetSignature;
+import com.example.springboottesting.dto.EmployeeSummary;
 import com.example.springboottesting.model.Employee;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface EmployeeRepository extends JpaRepository<Employee, Long> {
+public interface EmployeeRepository extends JpaRepository<Employee, Long>, EmployeeFieldsRepository {
 
     Optional<Employee> findByEmail(String email);
 
+    List<Employee> findByEmailIn(Collection<String> emails);
+
+    @Query("select e.id from Employee e where e.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
 
     //define JPQL with index parameters
     @Query("select e from Employee e where e.firstName=?1 and e.lastName=?2")
@@ -29,4 +44,38 @@ public interface EmployeeRepository extends JpaRepository<Employee, Long> {
     @Query(value = "select * from employees as e where e.first_name=:firstName and e.last_name=:lastName",nativeQuery = true)
     Employee findByFirstNameAndLastNameWithSQLNativeQueryNamedParams(@Param("firstName") String firstName,
                                                                      @Param("lastName") String lastName);
+
+    @Query("select e.version from Employee e where e.id=:id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Query("select count(e) as rowCount, coalesce(sum(e.id),0) as idSum, coalesce(sum(e.version),0) as versionSum from Employee e")
+    EmployeeSetSignature findTableSignature();
+
+    //signature of the rows findPageAfter would return
+    @Query(value = "select count(*) as rowCount, coalesce(sum(p.id),0) as idSum, coalesce(sum(p.version),0) as versionSum "
+            + "from (select e.id, e.version from employees e where e.id>:after order by e.id limit :limit) p", nativeQuery = true)
+    EmployeeSetSignature findPageSignature(@Param("after") Long after, @Param("limit") int limit);
+
+    //partial update in one statement, null fields are left unchanged and a null version skips the optimistic check
+    @Modifying(clearAutomatically = true)
+    @Query("update Employee e set e.firstName=coalesce(:firstName,e.firstName), e.lastName=coalesce(:lastName,e.lastName), "
+            + "e.email=coalesce(:email,e.email), e.version=e.version+1 "
+            + "where e.id=:id and (:version is null or e.version=:version)")
+    int patchEmployee(@Param("id") Long id, @Param("firstName") String firstName, @Param("lastName") String lastName,
+                      @Param("email") String email, @Param("version") Long version);
+
+    //keyset page on id, only the page size is taken from pageable so no count query or offset scan is issued
+    @Query("select e from Employee e where e.id>:after order by e.id")
+    List<Employee> findPageAfter(@Param("after") Long after, Pageable pageable);
+
+    //keyset page of summaries mapped straight from the result set, no managed entities
+    @Query("select new com.example.springboottesting.dto.EmployeeSummary(e.id,e.firstName,e.lastName) "
+            + "from Employee e where e.id>:after order by e.id")
+    List<EmployeeSummary> findSummariesAfter(@Param("after") Long after, Pageable pageable);
+
+    //server side cursor over the whole table, must be consumed inside a transaction and closed afterwards
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select e from Employee e order by e.id")
+    Stream<Employee> streamAll();
 }
@@ -0,0 +1,404 @@
+package com.example.springboottesting.search;
+
+import com.example.springboottesting.event.EmployeeChangedEvent;
+import com.example.springboottesting.model.Employee;
+import com.example.springboottesting.repository.EmployeeRepository;
+import com.example.springboottesting.sharding.ShardRouter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//in-process inverted index over first name, last name and email tokens. Prefix matches come from
+//the sorted term dictionary, typo tolerant matches (one edit) from a deletion neighbourhood index,
+//so neither needs a scan over all terms. Built at startup and kept in sync from committed writes
+@Component
+@Profile("!reactive")
+public class EmployeeSearchIndex {
+
+    private static final int BUILD_BATCH_SIZE = 1000;
+
+    //shorter tokens would match too much with one edit
+    private static final int MIN_FUZZY_LENGTH = 4;
+
+    private static final int EXACT_SCORE = 3;
+
+    private static final int PREFIX_SCORE = 2;
+
+    private static final int FUZZY_SCORE = 1;
+
+    private final EmployeeRepository employeeRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    //copies, never managed entities
+    private final Map<Long, Employee> documents = new HashMap<>();
+
+    private final Map<Long, Set<String>> documentTerms = new HashMap<>();
+
+    private final TreeMap<String, Set<Long>> postings = new TreeMap<>();
+
+    //every term and all its single deletions, mapped to the terms they came from
+    private final Map<String, Set<String>> deletions = new HashMap<>();
+
+    //ids deleted while build() runs, a page read before the delete committed must not bring them back
+    private final Set<Long> deletedDuringBuild = new HashSet<>();
+
+    //ids patched while build() runs before their row was loaded, the patch only has the changed fields so
+    //these rows are read again once all pages are loaded
+    private final Set<Long> patchedDuringBuild = new HashSet<>();
+
+    private boolean building;
+
+    //only present in the sharded profile
+    private final ObjectProvider<ShardRouter> shardRouter;
+
+    public EmployeeSearchIndex(EmployeeRepository employeeRepository, ObjectProvider<ShardRouter> shardRouter) {
+        this.employeeRepository = employeeRepository;
+        this.shardRouter = shardRouter;
+    }
+
+    //false defers loading to the first search, see the lazy profile
+    @Value("${app.search.build-on-startup:true}")
+    private boolean buildOnStartup = true;
+
+    private volatile boolean built;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (buildOnStartup) {
+            build();
+        }
+    }
+
+    //pages are read outside the lock, so writes committed during the load may reach the index as events before
+    //the page that still has the old row: loaded rows never replace a newer version or bring back a deleted id,
+    //and rows patched before they were loaded are read again at the end
+    public synchronized void build() {
+        setBuilding(true);
+        try {
+            ShardRouter router = shardRouter.getIfAvailable();
+            if (router == null) {
+                load();
+            } else {
+                for (int shard = 0; shard < router.getShardCount(); shard++) {
+                    router.inShard(shard, this::load);
+                }
+            }
+            reloadPatched(router);
+            //only now, searches meanwhile wait for the build and a failed one is retried by the next search
+            built = true;
+        } finally {
+            setBuilding(false);
+        }
+    }
+
+    private void setBuilding(boolean building) {
+        lock.writeLock().lock();
+        try {
+            this.building = building;
+            deletedDuringBuild.clear();
+            patchedDuringBuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load() {
+        long after = 0;
+        List<Employee> batch;
+        do {
+            batch = employeeRepository.findPageAfter(after, PageRequest.of(0, BUILD_BATCH_SIZE));
+            putLoaded(batch);
+            if (!batch.isEmpty()) {
+                after = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == BUILD_BATCH_SIZE);
+    }
+
+    //a reread row can be patched again before it is put, so this repeats until no patch was missed
+    private void reloadPatched(ShardRouter router) {
+        Set<Long> ids;
+        while (!(ids = takePatchedDuringBuild()).isEmpty()) {
+            if (router == null) {
+                putLoaded(employeeRepository.findAllById(ids));
+            } else {
+                Map<Integer, List<Long>> idsByShard = new HashMap<>();
+                for (Long id : ids) {
+                    idsByShard.computeIfAbsent(router.shardForId(id), shard -> new ArrayList<>()).add(id);
+                }
+                idsByShard.forEach((shard, shardIds) ->
+                        router.inShard(shard, () -> putLoaded(employeeRepository.findAllById(shardIds))));
+            }
+        }
+    }
+
+    private Set<Long> takePatchedDuringBuild() {
+        lock.writeLock().lock();
+        try {
+            Set<Long> ids = new HashSet<>(patchedDuringBuild);
+            patchedDuringBuild.clear();
+            return ids;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putLoaded(List<Employee> employees) {
+        lock.writeLock().lock();
+        try {
+            for (Employee employee : employees) {
+                if (!deletedDuringBuild.contains(employee.getId()) && !isOlderThanIndexed(employee)) {
+                    put(copyOf(employee));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        if (event.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Employee current = documents.get(event.getId());
+            switch (event.getType()) {
+                case SAVED -> put(copyOf(event.getEmployee()));
+                case PATCHED -> {
+                    if (current != null) {
+                        put(patched(current, event.getEmployee()));
+                    } else if (building) {
+                        patchedDuringBuild.add(event.getId());
+                    }
+                }
+                case DELETED -> {
+                    remove(event.getId());
+                    if (building) {
+                        deletedDuringBuild.add(event.getId());
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //every query token has to match a term exactly, by prefix or within one edit;
+    //results are ranked by summed match quality, then by id
+    public List<Employee> search(String query, int limit) {
+        if (!built) {
+            synchronized (this) {
+                if (!built) {
+                    build();
+                }
+            }
+        }
+        Set<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (String token : tokens) {
+                Map<Long, Integer> tokenScores = scoreToken(token);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    Map<Long, Integer> intersection = new HashMap<>();
+                    for (Map.Entry<Long, Integer> entry : scores.entrySet()) {
+                        Integer score = tokenScores.get(entry.getKey());
+                        if (score != null) {
+                            intersection.put(entry.getKey(), entry.getValue() + score);
+                        }
+                    }
+                    scores = intersection;
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+            List<Employee> results = new ArrayList<>(Math.min(limit, scores.size()));
+            scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder())
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(limit)
+                    .forEach(entry -> results.add(copyOf(documents.get(entry.getKey()))));
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Integer> scoreToken(String token) {
+        Map<Long, Integer> tokenScores = new HashMap<>();
+        for (Map.Entry<String, Set<Long>> entry : postings.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+            int score = entry.getKey().equals(token) ? EXACT_SCORE : PREFIX_SCORE;
+            for (Long id : entry.getValue()) {
+                tokenScores.merge(id, score, Math::max);
+            }
+        }
+        if (token.length() >= MIN_FUZZY_LENGTH) {
+            Set<String> candidates = new HashSet<>();
+            for (String variant : variantsOf(token)) {
+                candidates.addAll(deletions.getOrDefault(variant, Set.of()));
+            }
+            for (String term : candidates) {
+                if (withinOneEdit(token, term)) {
+                    for (Long id : postings.get(term)) {
+                        tokenScores.merge(id, FUZZY_SCORE, Math::max);
+                    }
+                }
+            }
+        }
+        return tokenScores;
+    }
+
+    private boolean isOlderThanIndexed(Employee employee) {
+        Employee current = documents.get(employee.getId());
+        return current != null && current.getVersion() != null && employee.getVersion() != null
+                && employee.getVersion() < current.getVersion();
+    }
+
+    private void put(Employee employee) {
+        remove(employee.getId());
+        Set<String> terms = new LinkedHashSet<>();
+        terms.addAll(tokenize(employee.getFirstName()));
+        terms.addAll(tokenize(employee.getLastName()));
+        terms.addAll(tokenize(employee.getEmail()));
+        for (String term : terms) {
+            Set<Long> ids = postings.get(term);
+            if (ids == null) {
+                ids = new HashSet<>();
+                postings.put(term, ids);
+                for (String variant : variantsOf(term)) {
+                    deletions.computeIfAbsent(variant, key -> new HashSet<>()).add(term);
+                }
+            }
+            ids.add(employee.getId());
+        }
+        documents.put(employee.getId(), employee);
+        documentTerms.put(employee.getId(), terms);
+    }
+
+    private void remove(Long id) {
+        documents.remove(id);
+        Set<String> terms = documentTerms.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Set<Long> ids = postings.get(term);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(term);
+                for (String variant : variantsOf(term)) {
+                    Set<String> variantTerms = deletions.get(variant);
+                    variantTerms.remove(term);
+                    if (variantTerms.isEmpty()) {
+                        deletions.remove(variant);
+                    }
+                }
+            }
+        }
+    }
+
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    //the term itself plus every string obtained by deleting one character
+    private static Set<String> variantsOf(String term) {
+        Set<String> variants = new HashSet<>();
+        variants.add(term);
+        for (int i = 0; i < term.length(); i++) {
+            variants.add(term.substring(0, i) + term.substring(i + 1));
+        }
+        return variants;
+    }
+
+    //optimal string alignment distance <= 1 (one insertion, deletion, substitution or adjacent transposition)
+    static boolean withinOneEdit(String a, String b) {
+        if (Math.abs(a.length() - b.length()) > 1) {
+            return false;
+        }
+        int i = 0;
+        while (i < a.length() && i < b.length() && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        if (i == a.length() || i == b.length()) {
+            return true;
+        }
+        if (a.length() == b.length()) {
+            if (a.substring(i + 1).equals(b.substring(i + 1))) {
+                return true;
+            }
+            return i + 1 < a.length() && a.charAt(i) == b.charAt(i + 1) && a.charAt(i + 1) == b.charAt(i)
+                    && a.substring(i + 2).equals(b.substring(i + 2));
+        }
+        return a.length() > b.length() ? a.substring(i + 1).equals(b.substring(i)) : a.substring(i).equals(b.substring(i + 1));
+    }
+
+    private static Employee copyOf(Employee employee) {
+        return Employee.builder()
+                .id(employee.getId())
+                .firstName(employee.getFirstName())
+                .lastName(employee.getLastName())
+                .email(employee.getEmail())
+                .version(employee.getVersion())
+                .build();
+    }
+
+    private static Employee patched(Employee current, Employee patch) {
+        Employee employee = copyOf(current);
+        if (patch.getFirstName() != null) {
+            employee.setFirstName(patch.getFirstName());
+        }
+        if (patch.getLastName() != null) {
+            employee.setLastName(patch.getLastName());
+        }
+        if (patch.getEmail() != null) {
+            employee.setEmail(patch.getEmail());
+        }
+        employee.setVersion(current.getVersion() == null ? null : current.getVersion() + 1);
+        return employee;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.springboottesting.service;
+
+import com.example.springboottesting.config.CacheConfig;
+import com.example.springboottesting.event.EmployeeChangedEvent;
+import com.example.springboottesting.model.Employee;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+//drops employeesById and employeesByEmail entries once a write committed, never before: an evict ahead of
+//the commit would let a read of the old row fill the cache again. Each cache counts its invalidations, a load
+//remembers the count it started with and its result is only kept if nothing was invalidated meanwhile
+@Component
+@Profile("!reactive")
+public class EmployeeCacheInvalidator {
+
+    private final CacheManager cacheManager;
+
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public EmployeeCacheInvalidator(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    //taken before the load, passed to putIfCurrent with its result
+    public long generation(String cacheName) {
+        return generations.computeIfAbsent(cacheName, name -> new AtomicLong()).get();
+    }
+
+    //put first and check after: an invalidation counted before the check is caught here, one counted after it
+    //evicts the entry itself
+    public void putIfCurrent(String cacheName, Object key, Employee employee, long generation) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        cache.put(key, employee);
+        if (generation(cacheName) != generation) {
+            cache.evict(key);
+        }
+    }
+
+    //after EmployeeReadCoalescer, so a load that starts with the new count can not join a query from before the write
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        invalidate(CacheConfig.EMPLOYEES_BY_ID, cache -> cache.evict(event.getId()));
+        //the previous email is not in the event
+        invalidate(CacheConfig.EMPLOYEES_BY_EMAIL, Cache::clear);
+    }
+
+    private void invalidate(String cacheName, Consumer<Cache> evict) {
+        generations.computeIfAbsent(cacheName, name -> new AtomicLong()).incrementAndGet();
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            evict.accept(cache);
+        }
+    }
+}
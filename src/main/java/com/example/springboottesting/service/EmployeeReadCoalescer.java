@@ -0,0 +1,82 @@
+package com.example.springboottesting.service;
+
+import com.example.springboottesting.event.EmployeeChangedEvent;
+import com.example.springboottesting.model.Employee;
+import com.example.springboottesting.sharding.ShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+//lets concurrent identical reads of EmployeeServiceImpl share one query, e.g. a herd of requests for the same
+//employee right after its cache entry was evicted or a deploy started with empty caches. Counted by operation
+//as employee.reads.executed (queries run) and employee.reads.coalesced (calls that joined a running query)
+@Component
+@Profile("!reactive")
+public class EmployeeReadCoalescer {
+
+    private final SingleFlight<Long, Optional<Employee>> byId;
+
+    private final SingleFlight<String, Optional<Employee>> byEmail;
+
+    //keyed by shard, the sharded profile reads all shards in parallel through the same service
+    private final SingleFlight<String, List<Employee>> all;
+
+    //joining callers get detached copies, under open-in-view the leader's employees stay managed by its
+    //request and a caller changing them, like the PUT handler does, must not end up in another request's flush
+    public EmployeeReadCoalescer(MeterRegistry meterRegistry) {
+        this.byId = new SingleFlight<>("by_id", employee -> employee.map(EmployeeReadCoalescer::copyOf), meterRegistry);
+        this.byEmail = new SingleFlight<>("by_email", employee -> employee.map(EmployeeReadCoalescer::copyOf), meterRegistry);
+        this.all = new SingleFlight<>("all", EmployeeReadCoalescer::copyOf, meterRegistry);
+    }
+
+    public Optional<Employee> getById(Long id, Supplier<Optional<Employee>> loader) {
+        return inTransaction() ? loader.get() : byId.execute(id, loader);
+    }
+
+    public Optional<Employee> getByEmail(String email, Supplier<Optional<Employee>> loader) {
+        return inTransaction() ? loader.get() : byEmail.execute(email, loader);
+    }
+
+    public List<Employee> getAll(Supplier<List<Employee>> loader) {
+        return inTransaction() ? loader.get() : all.execute(String.valueOf(ShardRouter.currentShard()), loader);
+    }
+
+    //reads started before a commit may miss it, callers arriving after it get a query of their own.
+    //Runs before EmployeeCacheInvalidator, see there
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onEmployeeChanged(EmployeeChangedEvent event) {
+        if (event.getId() != null) {
+            byId.forget(event.getId());
+        }
+        //the previous email is not in the event
+        byEmail.forgetAll();
+        all.forgetAll();
+    }
+
+    private static List<Employee> copyOf(List<Employee> employees) {
+        List<Employee> copies = new ArrayList<>(employees.size());
+        for (Employee employee : employees) {
+            copies.add(copyOf(employee));
+        }
+        return copies;
+    }
+
+    private static Employee copyOf(Employee employee) {
+        return employee.toBuilder().build();
+    }
+
+    //a caller inside a transaction must see its own uncommitted writes, and waiting would pin its connection
+    private static boolean inTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive();
+    }
+}
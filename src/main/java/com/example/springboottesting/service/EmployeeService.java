@@ -1,12 +1,19 @@
 package com.example.springboottesting.service;
 
+import com.example.springboottesting.dto.BulkItemResult;
+import com.example.springboottesting.dto.EmployeeLookupResult;
+import com.example.springboottesting.dto.EmployeeSetSignature;
+import com.example.springboottesting.dto.EmployeeSummary;
 import com.example.springboottesting.model.Employee;
 import com.example.springboottesting.repository.EmployeeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 public interface EmployeeService {
@@ -15,11 +22,49 @@ public interface EmployeeService {
 
    List<Employee> getAllEmployees();
 
+   //keyset page of at most limit employees with id greater than afterId
+   List<Employee> getEmployeesAfter(Long afterId, int limit);
+
+   List<EmployeeSummary> getEmployeeSummariesAfter(Long afterId, int limit);
+
+   //only the given fields of each employee, see EmployeeFieldsRepository.SELECTABLE_FIELDS
+   List<Map<String,Object>> getEmployeeFieldsAfter(Collection<String> fields, Long afterId, int limit);
+
+   //hands every employee to the action one at a time without materializing the table
+   void streamAllEmployees(Consumer<Employee> action);
+
    Optional<Employee> getEmployeeById(Long id);
 
+   Optional<Employee> getEmployeeByEmail(String email);
+
+   //one result per key, in input order, misses are NOT_FOUND and null keys INVALID
+   List<EmployeeLookupResult> getEmployeesByIds(List<Long> ids);
+
+   List<EmployeeLookupResult> getEmployeesByEmails(List<String> emails);
+
+   //version column only, for answering conditional requests without reading the row
+   Optional<Long> getEmployeeVersion(Long id);
+
+   EmployeeSetSignature getAllEmployeesSignature();
+
+   EmployeeSetSignature getEmployeePageSignature(Long afterId, int limit);
+
    Employee updateEmployee(Employee updatedEmployee);
 
+   //applies the non null fields of patch, patch.version (if set) must match the stored version
+   void patchEmployee(Long id, Employee patch);
+
    void deleteEmployee(Long id);
 
+   //prefix and one-typo tolerant match on names and email, best matches first
+   List<Employee> searchEmployees(String query, int limit);
+
+   //bulk writes return one result per input item, in input order
+   List<BulkItemResult> saveEmployees(List<Employee> employees);
+
+   List<BulkItemResult> updateEmployees(List<Employee> employees);
+
+   List<BulkItemResult> deleteEmployees(List<Long> ids);
+
 
 }
@@ -1,51 +1,448 @@
 package com.example.springboottesting.service;
 
+import com.example.springboottesting.config.CacheConfig;
+import com.example.springboottesting.config.MetricsConfig;
+import com.example.springboottesting.datasource.ReplicaRoutingDataSource;
+import com.example.springboottesting.dto.BulkItemResult;
+import com.example.springboottesting.dto.BulkItemStatus;
+import com.example.springboottesting.dto.EmployeeLookupResult;
+import com.example.springboottesting.dto.EmployeeSetSignature;
+import com.example.springboottesting.dto.EmployeeSummary;
+import com.example.springboottesting.event.EmployeeChangedEvent;
+import com.example.springboottesting.exception.EmployeeAlreadyExistsException;
 import com.example.springboottesting.exception.ResourceNotFoundException;
 import com.example.springboottesting.model.Employee;
 import com.example.springboottesting.repository.EmployeeRepository;
+import com.example.springboottesting.search.EmployeeSearchIndex;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+//one timer per method, tagged with class and method
 @Service
+@Profile("!reactive")
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class EmployeeServiceImpl implements EmployeeService{
 
+    //keep in line with spring.jpa.properties.hibernate.jdbc.batch_size
+    static final int WRITE_BATCH_SIZE = 50;
+
+    //upper bound for the number of parameters bound into a single IN clause
+    static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+
     @Autowired
     private EmployeeRepository employeeRepository;
 
-    public EmployeeServiceImpl(EmployeeRepository employeeRepository) {
+    private EntityManager entityManager;
+
+    //every write publishes an EmployeeChangedEvent, delivered to transactional listeners after commit;
+    //writes run in a transaction so that the outbox row of EmployeeChangeOutbox commits with them
+    private ApplicationEventPublisher eventPublisher;
+
+    private EmployeeSearchIndex searchIndex;
+
+    private EmployeeReadCoalescer readCoalescer;
+
+    //employeesById and employeesByEmail, read and filled by cached() and the bulk lookups;
+    //writes do not touch them, cacheInvalidator evicts after commit
+    private CacheManager cacheManager;
+
+    private EmployeeCacheInvalidator cacheInvalidator;
+
+    public EmployeeServiceImpl(EmployeeRepository employeeRepository, EntityManager entityManager,
+                               ApplicationEventPublisher eventPublisher, EmployeeSearchIndex searchIndex,
+                               EmployeeReadCoalescer readCoalescer, CacheManager cacheManager,
+                               EmployeeCacheInvalidator cacheInvalidator) {
         this.employeeRepository = employeeRepository;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.searchIndex = searchIndex;
+        this.readCoalescer = readCoalescer;
+        this.cacheManager = cacheManager;
+        this.cacheInvalidator = cacheInvalidator;
     }
 
+    //duplicates are detected by the unique constraint on email in the same round trip as the insert
     @Override
+    @Transactional
     public Employee saveEmployee(Employee employee) {
-        //check if employee already exists
-        Optional<Employee> employeeFromDB=employeeRepository.findByEmail(employee.getEmail());
-        if(employeeFromDB.isPresent()){
-            throw new ResourceNotFoundException("Employee already exists with given email : "+employee.getEmail());
+        try {
+            Employee savedEmployee = employeeRepository.saveAndFlush(employee);
+            eventPublisher.publishEvent(EmployeeChangedEvent.saved(savedEmployee));
+            return savedEmployee;
+        } catch (DataIntegrityViolationException e) {
+            throw translateEmailConflict(e,employee.getEmail());
         }
-
-        return employeeRepository.save(employee);
     }
 
+    //concurrent calls share one findAll. Not transactional itself, so callers waiting for a running query hold
+    //no connection; findAll runs in the repository's own read only transaction
     @Override
     public List<Employee> getAllEmployees() {
-        return employeeRepository.findAll();
+        return readCoalescer.getAll(employeeRepository::findAll);
+    }
+
+    //read only transactions let hibernate skip the dirty checking snapshots of loaded rows
+    @Override
+    @Transactional(readOnly = true)
+    public List<Employee> getEmployeesAfter(Long afterId, int limit) {
+        return employeeRepository.findPageAfter(afterId, PageRequest.of(0, limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<EmployeeSummary> getEmployeeSummariesAfter(Long afterId, int limit) {
+        return employeeRepository.findSummariesAfter(afterId, PageRequest.of(0, limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String,Object>> getEmployeeFieldsAfter(Collection<String> fields, Long afterId, int limit) {
+        //the id is always selected because it is the page cursor
+        Set<String> selectedFields=new LinkedHashSet<>();
+        selectedFields.add("id");
+        selectedFields.addAll(fields);
+        return employeeRepository.findFieldsAfter(selectedFields, afterId, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllEmployees(Consumer<Employee> action) {
+        try (Stream<Employee> employees = employeeRepository.streamAll()) {
+            employees.forEach(employee -> {
+                action.accept(employee);
+                //detach so the persistence context does not grow with the table
+                entityManager.detach(employee);
+            });
+        }
     }
 
+    //misses are not cached, so a newly saved employee is visible without any eviction;
+    //concurrent cache misses for the same key share one query
     @Override
     public Optional<Employee> getEmployeeById(Long id) {
-        return employeeRepository.findById(id);
+        return cached(CacheConfig.EMPLOYEES_BY_ID, id, () -> readCoalescer.getById(id, () -> employeeRepository.findById(id)));
     }
 
     @Override
+    public Optional<Employee> getEmployeeByEmail(String email) {
+        return cached(CacheConfig.EMPLOYEES_BY_EMAIL, email,
+                () -> readCoalescer.getByEmail(email, () -> employeeRepository.findByEmail(email)));
+    }
+
+    //cached employees are taken from the id cache, the others are loaded with one IN query per
+    //IN_CLAUSE_CHUNK_SIZE ids and cached like getEmployeeById does
+    @Override
+    @Transactional(readOnly = true)
+    public List<EmployeeLookupResult> getEmployeesByIds(List<Long> ids) {
+        Map<Long,Employee> employees=lookup(ids,CacheConfig.EMPLOYEES_BY_ID,Employee::getId,employeeRepository::findAllById);
+        List<EmployeeLookupResult> results=new ArrayList<>(ids.size());
+        for(int i=0;i<ids.size();i++){
+            Long id=ids.get(i);
+            Employee employee=id==null?null:employees.get(id);
+            if(id==null){
+                results.add(new EmployeeLookupResult(i,null,null,BulkItemStatus.INVALID,"id is required",null));
+            }else if(employee!=null){
+                results.add(new EmployeeLookupResult(i,id,null,BulkItemStatus.FOUND,null,employee));
+            }else{
+                results.add(new EmployeeLookupResult(i,id,null,BulkItemStatus.NOT_FOUND,"Employee not found with id : "+id,null));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<EmployeeLookupResult> getEmployeesByEmails(List<String> emails) {
+        Map<String,Employee> employees=lookup(emails,CacheConfig.EMPLOYEES_BY_EMAIL,Employee::getEmail,employeeRepository::findByEmailIn);
+        List<EmployeeLookupResult> results=new ArrayList<>(emails.size());
+        for(int i=0;i<emails.size();i++){
+            String email=emails.get(i);
+            Employee employee=email==null?null:employees.get(email);
+            if(email==null){
+                results.add(new EmployeeLookupResult(i,null,null,BulkItemStatus.INVALID,"email is required",null));
+            }else if(employee!=null){
+                results.add(new EmployeeLookupResult(i,employee.getId(),email,BulkItemStatus.FOUND,null,employee));
+            }else{
+                results.add(new EmployeeLookupResult(i,null,email,BulkItemStatus.NOT_FOUND,"Employee not found with email : "+email,null));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public Optional<Long> getEmployeeVersion(Long id) {
+        return employeeRepository.findVersionById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public EmployeeSetSignature getAllEmployeesSignature() {
+        return employeeRepository.findTableSignature();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public EmployeeSetSignature getEmployeePageSignature(Long afterId, int limit) {
+        return employeeRepository.findPageSignature(afterId, limit);
+    }
+
+    //the previous email of the employee is unknown here, so the whole email cache is dropped
+    @Override
+    @Transactional
     public Employee updateEmployee(Employee updatedEmployee) {
-        return employeeRepository.save(updatedEmployee);
+        try {
+            Employee savedEmployee = employeeRepository.saveAndFlush(updatedEmployee);
+            eventPublisher.publishEvent(EmployeeChangedEvent.saved(savedEmployee));
+            return savedEmployee;
+        } catch (DataIntegrityViolationException e) {
+            throw translateEmailConflict(e,updatedEmployee.getEmail());
+        }
     }
 
+    //no pre-read: the affected row count tells whether the employee exists, only a failed update
+    //with a version is followed by an existence check to tell a stale version from a missing row
     @Override
+    @Transactional
+    public void patchEmployee(Long id, Employee patch) {
+        int updatedRows;
+        try {
+            updatedRows=employeeRepository.patchEmployee(id,patch.getFirstName(),patch.getLastName(),
+                    patch.getEmail(),patch.getVersion());
+        } catch (DataIntegrityViolationException e) {
+            throw translateEmailConflict(e,patch.getEmail());
+        }
+        if(updatedRows==0){
+            if(patch.getVersion()!=null && employeeRepository.existsById(id)){
+                throw new ObjectOptimisticLockingFailureException(Employee.class,id);
+            }
+            throw new ResourceNotFoundException("Employee not found with id : "+id);
+        }
+        eventPublisher.publishEvent(EmployeeChangedEvent.patched(id,patch));
+    }
+
+    @Override
+    @Transactional
     public void deleteEmployee(Long id) {
         employeeRepository.deleteById(id);
+        eventPublisher.publishEvent(EmployeeChangedEvent.deleted(id));
+    }
+
+    @Override
+    public List<Employee> searchEmployees(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    @Override
+    @Transactional
+    public List<BulkItemResult> saveEmployees(List<Employee> employees) {
+        Set<String> existingEmails=new HashSet<>();
+        for(Employee existing:inChunks(emailsOf(employees),employeeRepository::findByEmailIn)){
+            existingEmails.add(existing.getEmail());
+        }
+
+        List<BulkItemResult> results=new ArrayList<>(employees.size());
+        Set<String> seenEmails=new HashSet<>();
+        int pending=0;
+        for(int i=0;i<employees.size();i++){
+            Employee employee=employees.get(i);
+            if(!isValid(employee)){
+                results.add(new BulkItemResult(i,null,BulkItemStatus.INVALID,"firstName, lastName and email are required"));
+                continue;
+            }
+            if(existingEmails.contains(employee.getEmail()) || !seenEmails.add(employee.getEmail())){
+                results.add(new BulkItemResult(i,null,BulkItemStatus.CONFLICT,"Employee already exists with given email : "+employee.getEmail()));
+                continue;
+            }
+            //a version from an import would make spring data merge the row instead of inserting it at version 0
+            employee.setId(null);
+            employee.setVersion(null);
+            Employee savedEmployee=employeeRepository.save(employee);
+            results.add(new BulkItemResult(i,savedEmployee.getId(),BulkItemStatus.CREATED,null));
+            eventPublisher.publishEvent(EmployeeChangedEvent.saved(savedEmployee));
+            if(++pending%WRITE_BATCH_SIZE==0){
+                //send the jdbc batch and drop the written entities from the persistence context
+                employeeRepository.flush();
+                entityManager.clear();
+            }
+        }
+        return results;
+    }
+
+    @Override
+    @Transactional
+    public List<BulkItemResult> updateEmployees(List<Employee> employees) {
+        List<Long> ids=new ArrayList<>();
+        for(Employee employee:employees){
+            if(employee!=null && employee.getId()!=null){
+                ids.add(employee.getId());
+            }
+        }
+        Map<Long,Employee> savedEmployees=new HashMap<>();
+        for(Employee savedEmployee:inChunks(ids,employeeRepository::findAllById)){
+            savedEmployees.put(savedEmployee.getId(),savedEmployee);
+        }
+        Map<String,Long> emailOwners=new HashMap<>();
+        for(Employee owner:inChunks(emailsOf(employees),employeeRepository::findByEmailIn)){
+            emailOwners.put(owner.getEmail(),owner.getId());
+        }
+
+        //changes are applied to managed entities and flushed as batched updates on commit
+        List<BulkItemResult> results=new ArrayList<>(employees.size());
+        Set<String> seenEmails=new HashSet<>();
+        for(int i=0;i<employees.size();i++){
+            Employee employee=employees.get(i);
+            if(!isValid(employee) || employee.getId()==null){
+                results.add(new BulkItemResult(i,null,BulkItemStatus.INVALID,"id, firstName, lastName and email are required"));
+                continue;
+            }
+            Employee savedEmployee=savedEmployees.get(employee.getId());
+            if(savedEmployee==null){
+                results.add(new BulkItemResult(i,employee.getId(),BulkItemStatus.NOT_FOUND,"Employee not found with id : "+employee.getId()));
+                continue;
+            }
+            Long owner=emailOwners.get(employee.getEmail());
+            if((owner!=null && !owner.equals(employee.getId())) || !seenEmails.add(employee.getEmail())){
+                results.add(new BulkItemResult(i,employee.getId(),BulkItemStatus.CONFLICT,"Employee already exists with given email : "+employee.getEmail()));
+                continue;
+            }
+            savedEmployee.setFirstName(employee.getFirstName());
+            savedEmployee.setLastName(employee.getLastName());
+            savedEmployee.setEmail(employee.getEmail());
+            results.add(new BulkItemResult(i,employee.getId(),BulkItemStatus.UPDATED,null));
+            eventPublisher.publishEvent(EmployeeChangedEvent.saved(savedEmployee));
+        }
+        return results;
+    }
+
+    @Override
+    @Transactional
+    public List<BulkItemResult> deleteEmployees(List<Long> ids) {
+        List<Long> requestedIds=new ArrayList<>();
+        for(Long id:ids){
+            if(id!=null){
+                requestedIds.add(id);
+            }
+        }
+        Set<Long> existingIds=new HashSet<>(inChunks(requestedIds,employeeRepository::findExistingIds));
+        List<Long> toDelete=new ArrayList<>(existingIds);
+        for(int from=0;from<toDelete.size();from+=IN_CLAUSE_CHUNK_SIZE){
+            employeeRepository.deleteAllByIdInBatch(toDelete.subList(from,Math.min(from+IN_CLAUSE_CHUNK_SIZE,toDelete.size())));
+        }
+
+        List<BulkItemResult> results=new ArrayList<>(ids.size());
+        for(int i=0;i<ids.size();i++){
+            Long id=ids.get(i);
+            if(id==null){
+                results.add(new BulkItemResult(i,null,BulkItemStatus.INVALID,"id is required"));
+            }else if(existingIds.remove(id)){
+                results.add(new BulkItemResult(i,id,BulkItemStatus.DELETED,null));
+                eventPublisher.publishEvent(EmployeeChangedEvent.deleted(id));
+            }else{
+                results.add(new BulkItemResult(i,id,BulkItemStatus.NOT_FOUND,"Employee not found with id : "+id));
+            }
+        }
+        return results;
+    }
+
+    //only a violation of the email unique constraint is a conflict, anything else is rethrown as is
+    private static RuntimeException translateEmailConflict(DataIntegrityViolationException e, String email){
+        String message=e.getMostSpecificCause().getMessage();
+        if(message!=null && message.toLowerCase().contains(Employee.EMAIL_UNIQUE_CONSTRAINT)){
+            return new EmployeeAlreadyExistsException("Employee already exists with given email : "+email,e);
+        }
+        return e;
+    }
+
+    private static boolean isValid(Employee employee){
+        return employee!=null && employee.getFirstName()!=null && employee.getLastName()!=null
+                && employee.getEmail()!=null;
+    }
+
+    private static List<String> emailsOf(List<Employee> employees){
+        Set<String> emails=new HashSet<>();
+        for(Employee employee:employees){
+            if(employee!=null && employee.getEmail()!=null){
+                emails.add(employee.getEmail());
+            }
+        }
+        return new ArrayList<>(emails);
+    }
+
+    //the cache holds detached copies that are never handed out: a hit returns a copy of its own, the caller
+    //that loads an employee gets the loaded instance. Callers may change what they get, e.g. the PUT handler,
+    //without other requests seeing unsaved or rejected edits. Loads read the primary, see ReplicaRoutingDataSource
+    private <K> Optional<Employee> cached(String cacheName, K key, Supplier<Optional<Employee>> loader){
+        Cache cache=cacheManager.getCache(cacheName);
+        Employee cached=cache==null?null:cache.get(key,Employee.class);
+        if(cached!=null){
+            return Optional.of(copyOf(cached));
+        }
+        long generation=cacheInvalidator.generation(cacheName);
+        Optional<Employee> employee=ReplicaRoutingDataSource.onPrimary(loader);
+        employee.ifPresent(loaded->cacheInvalidator.putIfCurrent(cacheName,key,copyOf(loaded),generation));
+        return employee;
+    }
+
+    private static Employee copyOf(Employee employee){
+        return employee.toBuilder().build();
+    }
+
+    //employees by key, from the cache where present, the distinct remaining keys are queried in chunks
+    //and the loaded employees put into the cache
+    private <K> Map<K,Employee> lookup(List<K> keys, String cacheName, Function<Employee,K> keyOf,
+                                       Function<List<K>,? extends Collection<Employee>> query){
+        Cache cache=cacheManager.getCache(cacheName);
+        Map<K,Employee> employees=new HashMap<>();
+        Set<K> missing=new LinkedHashSet<>();
+        for(K key:keys){
+            if(key==null || employees.containsKey(key)){
+                continue;
+            }
+            Employee cached=cache==null?null:cache.get(key,Employee.class);
+            if(cached!=null){
+                employees.put(key,copyOf(cached));
+            }else{
+                missing.add(key);
+            }
+        }
+        long generation=cacheInvalidator.generation(cacheName);
+        for(Employee employee:ReplicaRoutingDataSource.onPrimary(()->inChunks(new ArrayList<>(missing),query))){
+            employees.put(keyOf.apply(employee),employee);
+            cacheInvalidator.putIfCurrent(cacheName,keyOf.apply(employee),copyOf(employee),generation);
+        }
+        return employees;
+    }
+
+    //runs a set based query per IN_CLAUSE_CHUNK_SIZE keys and concatenates the results
+    private static <K,R> List<R> inChunks(List<K> keys, Function<List<K>,? extends Collection<R>> query){
+        List<R> results=new ArrayList<>();
+        for(int from=0;from<keys.size();from+=IN_CLAUSE_CHUNK_SIZE){
+            results.addAll(query.apply(keys.subList(from,Math.min(from+IN_CLAUSE_CHUNK_SIZE,keys.size()))));
+        }
+        return results;
     }
 }
@@ -0,0 +1,77 @@
+package com.example.springboottesting.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+//concurrent calls with the same key share one execution: the first caller runs the loader, callers arriving
+//while it runs wait for its result (or its exception) instead of running their own. Nothing is kept once the
+//loader returns, so this is no cache, the next call after that runs the loader again.
+//Waiting callers get the result through share, which has to copy anything mutable: the value belongs to the
+//leader, e.g. entities managed by the leader's open persistence context
+final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final UnaryOperator<V> share;
+
+    private final Counter executed;
+
+    private final Counter coalesced;
+
+    SingleFlight(String operation, UnaryOperator<V> share, MeterRegistry meterRegistry) {
+        this.share = share;
+        this.executed = Counter.builder("employee.reads.executed").tag("operation", operation).register(meterRegistry);
+        this.coalesced = Counter.builder("employee.reads.coalesced").tag("operation", operation).register(meterRegistry);
+    }
+
+    V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, call);
+        if (running != null) {
+            coalesced.increment();
+            return share.apply(await(running));
+        }
+        executed.increment();
+        try {
+            V value = loader.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            //only our own entry, forget may already have let a newer call take the key
+            inFlight.remove(key, call);
+        }
+    }
+
+    //callers arriving from now on start a new execution, those already waiting still get the running one
+    void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    void forgetAll() {
+        inFlight.clear();
+    }
+
+    private static <V> V await(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            //rethrow what the loader threw, e.g. a pool timeout that DataSourceExceptionHandler turns into 503
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.springboottesting.sharding;
+
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+//pooled sequence ids, made globally unique by appending the shard when the session belongs to one.
+//Without multi tenancy the sequence value is used as is, and the pooled optimizer keeps one
+//block of values per tenant, so shards never hand out each other's values
+public class ShardAwareSequenceGenerator extends SequenceStyleGenerator {
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        Long localId = (Long) super.generate(session, object);
+        String tenantIdentifier = session.getTenantIdentifier();
+        return tenantIdentifier == null ? localId : ShardRouter.globalId(localId, Integer.parseInt(tenantIdentifier));
+    }
+}
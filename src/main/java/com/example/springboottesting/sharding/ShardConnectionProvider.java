@@ -0,0 +1,25 @@
+package com.example.springboottesting.sharding;
+
+import org.hibernate.engine.jdbc.connections.spi.AbstractDataSourceBasedMultiTenantConnectionProviderImpl;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+public class ShardConnectionProvider extends AbstractDataSourceBasedMultiTenantConnectionProviderImpl {
+
+    private final List<DataSource> shards;
+
+    public ShardConnectionProvider(List<DataSource> shards) {
+        this.shards = shards;
+    }
+
+    @Override
+    protected DataSource selectAnyDataSource() {
+        return shards.get(0);
+    }
+
+    @Override
+    protected DataSource selectDataSource(String tenantIdentifier) {
+        return shards.get(Integer.parseInt(tenantIdentifier));
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.springboottesting.sharding;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+//global email -> employee id directory: one employee_emails row per email, on the hash shard of the email,
+//so its primary key makes email unique across shards while employee rows stay on the shard of their id.
+//An email is claimed here before a row gets it and released once the row no longer has it; a claim
+//without an id belongs to a create that has not got its id yet. Claiming first keeps two rows from
+//ever holding one email, a claim left behind by a failure only blocks the email
+public class ShardEmailDirectory {
+
+    private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+
+    private final List<NamedParameterJdbcTemplate> shards = new ArrayList<>();
+
+    private final ShardRouter shardRouter;
+
+    public ShardEmailDirectory(List<DataSource> shards, ShardRouter shardRouter) {
+        shards.forEach(shard -> this.shards.add(new NamedParameterJdbcTemplate(shard)));
+        this.shardRouter = shardRouter;
+    }
+
+    //false when another employee, or a create in progress, holds the email
+    public boolean claim(String email, Long employeeId) {
+        try {
+            jdbc(shardRouter.shardForEmail(email)).update("insert into employee_emails (email, employee_id) values (?, ?)",
+                    email, employeeId);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return employeeId != null && employeeId.equals(find(email).orElse(null));
+        }
+    }
+
+    //after creates, whether they succeeded or not: a create stores its row on the hash shard of the email, so
+    //a claim without an id gets the id of the row that has the email there, or is dropped if there is none
+    public void settle(Collection<String> emails) {
+        forEachChunk(emails, shardRouter::shardForEmail, (shard, chunk) -> {
+            Map<String, Object> params = Map.of("keys", chunk);
+            shard.update("update employee_emails d set employee_id = (select e.id from employees e where e.email = d.email)"
+                    + " where d.email in (:keys) and d.employee_id is null", params);
+            shard.update("delete from employee_emails where email in (:keys) and employee_id is null", params);
+        });
+    }
+
+    //only the given employee's claim, the email may have been claimed again by someone else
+    public void release(String email, long employeeId) {
+        jdbc(shardRouter.shardForEmail(email)).update(
+                "delete from employee_emails where email = ? and employee_id = ?", email, employeeId);
+    }
+
+    public Optional<Long> find(String email) {
+        List<Long> ids = jdbc(shardRouter.shardForEmail(email)).queryForList(
+                "select employee_id from employee_emails where email = ?", Long.class, email);
+        return ids.isEmpty() ? Optional.empty() : Optional.ofNullable(ids.get(0));
+    }
+
+    //holders of the given emails, emails without a holder are left out
+    public Map<String, Long> findAll(Collection<String> emails) {
+        Map<String, Long> ids = new HashMap<>();
+        forEachChunk(emails, shardRouter::shardForEmail, (shard, chunk) -> shard.query(
+                "select email, employee_id from employee_emails where email in (:keys) and employee_id is not null",
+                Map.of("keys", chunk), (RowCallbackHandler) rs -> ids.put(rs.getString("email"), rs.getLong("employee_id"))));
+        return ids;
+    }
+
+    //the email an employee row has right now, read from its shard and not from any cache
+    public Optional<String> emailOf(long employeeId) {
+        List<String> emails = jdbc(shardRouter.shardForId(employeeId)).queryForList(
+                "select email from employees where id = ?", String.class, employeeId);
+        return emails.stream().findFirst();
+    }
+
+    public Map<Long, String> emailsOf(Collection<Long> employeeIds) {
+        Map<Long, String> emails = new HashMap<>();
+        forEachChunk(employeeIds, shardRouter::shardForId, (shard, chunk) -> shard.query(
+                "select id, email from employees where id in (:keys)",
+                Map.of("keys", chunk), (RowCallbackHandler) rs -> emails.put(rs.getLong("id"), rs.getString("email"))));
+        return emails;
+    }
+
+    private JdbcTemplate jdbc(int shard) {
+        return shards.get(shard).getJdbcTemplate();
+    }
+
+    //keys grouped by shard, in chunks small enough for one IN clause each
+    private <K> void forEachChunk(Collection<K> keys, Function<K, Integer> shardOf,
+                                  BiConsumer<NamedParameterJdbcTemplate, List<K>> action) {
+        Map<Integer, List<K>> byShard = new HashMap<>();
+        for (K key : keys) {
+            byShard.computeIfAbsent(shardOf.apply(key), shard -> new ArrayList<>()).add(key);
+        }
+        byShard.forEach((shard, shardKeys) -> {
+            for (int from = 0; from < shardKeys.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+                action.accept(shards.get(shard), shardKeys.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, shardKeys.size())));
+            }
+        });
+    }
+}
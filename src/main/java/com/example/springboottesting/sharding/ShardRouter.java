@@ -0,0 +1,111 @@
+package com.example.springboottesting.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+//placement rules and the shard bound to the current thread. New employees go to the shard of their
+//email hash (ShardEmailDirectory keeps emails unique across shards); their id is the shard local sequence
+//value times MAX_SHARDS plus the shard, so the shard of a row is known from its id alone
+public class ShardRouter implements AutoCloseable {
+
+    public static final int MAX_SHARDS = 1024;
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final int shardCount;
+
+    private final ExecutorService fanOutExecutor;
+
+    public ShardRouter(int shardCount, int fanOutThreads) {
+        if (shardCount < 1 || shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException("shard count must be between 1 and " + MAX_SHARDS);
+        }
+        this.shardCount = shardCount;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.fanOutExecutor = Executors.newFixedThreadPool(fanOutThreads, runnable -> {
+            Thread thread = new Thread(runnable, "shard-fan-out-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static long globalId(long localId, int shard) {
+        return localId * MAX_SHARDS + shard;
+    }
+
+    //null outside of inShard
+    public static Integer currentShard() {
+        return CURRENT_SHARD.get();
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public int shardForId(long id) {
+        return (int) (Math.floorMod(id, MAX_SHARDS) % shardCount);
+    }
+
+    public int shardForEmail(String email) {
+        return Math.floorMod(email.toLowerCase(Locale.ROOT).hashCode(), shardCount);
+    }
+
+    //hibernate sessions opened by work use the connections of the given shard
+    public <T> T inShard(int shard, Supplier<T> work) {
+        Integer previous = CURRENT_SHARD.get();
+        CURRENT_SHARD.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT_SHARD.remove();
+            } else {
+                CURRENT_SHARD.set(previous);
+            }
+        }
+    }
+
+    public void inShard(int shard, Runnable work) {
+        inShard(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    //runs work on every shard in parallel, results are in shard order
+    public <T> List<T> onAllShards(IntFunction<T> work) {
+        List<Future<T>> futures = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int target = shard;
+            futures.add(fanOutExecutor.submit(() -> inShard(target, () -> work.apply(target))));
+        }
+        List<T> results = new ArrayList<>(shardCount);
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while waiting for shards", e);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public void close() {
+        fanOutExecutor.shutdown();
+    }
+}
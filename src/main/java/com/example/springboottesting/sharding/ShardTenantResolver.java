@@ -0,0 +1,20 @@
+package com.example.springboottesting.sharding;
+
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+
+//hibernate tenant = shard number, work outside of ShardRouter.inShard runs on shard 0
+public class ShardTenantResolver implements CurrentTenantIdentifierResolver {
+
+    static final String DEFAULT_SHARD = "0";
+
+    @Override
+    public String resolveCurrentTenantIdentifier() {
+        Integer shard = ShardRouter.currentShard();
+        return shard == null ? DEFAULT_SHARD : shard.toString();
+    }
+
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return false;
+    }
+}
@@ -0,0 +1,419 @@
+package com.example.springboottesting.sharding;
+
+import com.example.springboottesting.dto.BulkItemResult;
+import com.example.springboottesting.dto.BulkItemStatus;
+import com.example.springboottesting.dto.EmployeeLookupResult;
+import com.example.springboottesting.dto.EmployeeSetSignature;
+import com.example.springboottesting.dto.EmployeeSummary;
+import com.example.springboottesting.exception.EmployeeAlreadyExistsException;
+import com.example.springboottesting.model.Employee;
+import com.example.springboottesting.service.EmployeeService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+//EmployeeService of the sharded profile: point operations run on the shard given by the id or email,
+//list reads fan out to all shards in parallel and are merged by id. Calls are not transactional here,
+//every shard commits on its own, so a bulk request spanning shards is not atomic.
+//A new employee goes to the hash shard of its email and stays on that shard for good, its id names it.
+//Emails are claimed in ShardEmailDirectory before any write gives them to a row, which keeps them unique
+//across shards after updates moved them away from their hash shard
+@Service
+@Primary
+@Profile("sharded")
+public class ShardedEmployeeService implements EmployeeService {
+
+    private final EmployeeService shardService;
+
+    private final ShardRouter shardRouter;
+
+    private final ShardEmailDirectory emailDirectory;
+
+    public ShardedEmployeeService(@Qualifier("employeeServiceImpl") EmployeeService shardService, ShardRouter shardRouter,
+                                  ShardEmailDirectory emailDirectory) {
+        this.shardService = shardService;
+        this.shardRouter = shardRouter;
+        this.emailDirectory = emailDirectory;
+    }
+
+    @Override
+    public Employee saveEmployee(Employee employee) {
+        String email = employee.getEmail();
+        if (email == null) {
+            return shardRouter.inShard(0, () -> shardService.saveEmployee(employee));
+        }
+        if (!emailDirectory.claim(email, null)) {
+            throw new EmployeeAlreadyExistsException(conflictMessage(email));
+        }
+        try {
+            return shardRouter.inShard(shardOf(email), () -> shardService.saveEmployee(employee));
+        } finally {
+            emailDirectory.settle(List.of(email));
+        }
+    }
+
+    @Override
+    public List<Employee> getAllEmployees() {
+        List<Employee> employees = new ArrayList<>();
+        shardRouter.onAllShards(shard -> shardService.getAllEmployees()).forEach(employees::addAll);
+        employees.sort(Comparator.comparing(Employee::getId));
+        return employees;
+    }
+
+    @Override
+    public List<Employee> getEmployeesAfter(Long afterId, int limit) {
+        return mergePages(shardRouter.onAllShards(shard -> shardService.getEmployeesAfter(afterId, limit)), Employee::getId, limit);
+    }
+
+    @Override
+    public List<EmployeeSummary> getEmployeeSummariesAfter(Long afterId, int limit) {
+        return mergePages(shardRouter.onAllShards(shard -> shardService.getEmployeeSummariesAfter(afterId, limit)),
+                EmployeeSummary::getId, limit);
+    }
+
+    @Override
+    public List<Map<String, Object>> getEmployeeFieldsAfter(Collection<String> fields, Long afterId, int limit) {
+        return mergePages(shardRouter.onAllShards(shard -> shardService.getEmployeeFieldsAfter(fields, afterId, limit)),
+                employee -> (Long) employee.get("id"), limit);
+    }
+
+    //one shard after the other, ordered by id within a shard
+    @Override
+    public void streamAllEmployees(Consumer<Employee> action) {
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            shardRouter.inShard(shard, () -> shardService.streamAllEmployees(action));
+        }
+    }
+
+    @Override
+    public Optional<Employee> getEmployeeById(Long id) {
+        return shardRouter.inShard(shardRouter.shardForId(id), () -> shardService.getEmployeeById(id));
+    }
+
+    //an employee that kept the email it was created with is on the hash shard of the email, the directory
+    //points to the others
+    @Override
+    public Optional<Employee> getEmployeeByEmail(String email) {
+        int emailShard = shardRouter.shardForEmail(email);
+        Optional<Employee> employee = shardRouter.inShard(emailShard, () -> shardService.getEmployeeByEmail(email));
+        if (employee.isPresent()) {
+            return employee;
+        }
+        return emailDirectory.find(email)
+                .filter(id -> shardRouter.shardForId(id) != emailShard)
+                .flatMap(this::getEmployeeById)
+                .filter(holder -> email.equals(holder.getEmail()));
+    }
+
+    @Override
+    public List<EmployeeLookupResult> getEmployeesByIds(List<Long> ids) {
+        return bulk(ids, id -> id == null ? 0 : shardRouter.shardForId(id), shardService::getEmployeesByIds);
+    }
+
+    //the hash shards first, as for a single email, then the directory for the emails not found there
+    @Override
+    public List<EmployeeLookupResult> getEmployeesByEmails(List<String> emails) {
+        List<EmployeeLookupResult> results = bulk(emails, this::shardOf, shardService::getEmployeesByEmails);
+        List<String> missing = new ArrayList<>();
+        for (EmployeeLookupResult result : results) {
+            if (result.getStatus() == BulkItemStatus.NOT_FOUND) {
+                missing.add(result.getEmail());
+            }
+        }
+        Map<String, Long> holders = missing.isEmpty() ? Map.of() : emailDirectory.findAll(missing);
+        if (holders.isEmpty()) {
+            return results;
+        }
+        Map<Long, Employee> employees = new HashMap<>();
+        for (EmployeeLookupResult found : getEmployeesByIds(new ArrayList<>(new HashSet<>(holders.values())))) {
+            if (found.getStatus() == BulkItemStatus.FOUND) {
+                employees.put(found.getId(), found.getEmployee());
+            }
+        }
+        for (EmployeeLookupResult result : results) {
+            Employee holder = employees.get(holders.get(result.getEmail()));
+            if (result.getStatus() == BulkItemStatus.NOT_FOUND && holder != null && holder.getEmail().equals(result.getEmail())) {
+                result.setId(holder.getId());
+                result.setStatus(BulkItemStatus.FOUND);
+                result.setMessage(null);
+                result.setEmployee(holder);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public Optional<Long> getEmployeeVersion(Long id) {
+        return shardRouter.inShard(shardRouter.shardForId(id), () -> shardService.getEmployeeVersion(id));
+    }
+
+    @Override
+    public EmployeeSetSignature getAllEmployeesSignature() {
+        long[] totals = new long[3];
+        for (EmployeeSetSignature signature : shardRouter.onAllShards(shard -> shardService.getAllEmployeesSignature())) {
+            totals[0] += signature.getRowCount();
+            totals[1] += signature.getIdSum();
+            totals[2] += signature.getVersionSum();
+        }
+        return new MergedSignature(totals[0], totals[1], totals[2]);
+    }
+
+    //a merged page can not be summed from per shard page signatures, so it is loaded
+    @Override
+    public EmployeeSetSignature getEmployeePageSignature(Long afterId, int limit) {
+        long idSum = 0;
+        long versionSum = 0;
+        List<Employee> employees = getEmployeesAfter(afterId, limit);
+        for (Employee employee : employees) {
+            idSum += employee.getId();
+            versionSum += employee.getVersion() == null ? 0 : employee.getVersion();
+        }
+        return new MergedSignature(employees.size(), idSum, versionSum);
+    }
+
+    @Override
+    public Employee updateEmployee(Employee updatedEmployee) {
+        return withEmail(updatedEmployee.getId(), updatedEmployee.getEmail(),
+                () -> shardRouter.inShard(shardRouter.shardForId(updatedEmployee.getId()), () -> shardService.updateEmployee(updatedEmployee)));
+    }
+
+    @Override
+    public void patchEmployee(Long id, Employee patch) {
+        withEmail(id, patch.getEmail(), () -> {
+            shardRouter.inShard(shardRouter.shardForId(id), () -> shardService.patchEmployee(id, patch));
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteEmployee(Long id) {
+        Optional<String> email = emailDirectory.emailOf(id);
+        shardRouter.inShard(shardRouter.shardForId(id), () -> shardService.deleteEmployee(id));
+        email.ifPresent(deleted -> emailDirectory.release(deleted, id));
+    }
+
+    //the search index is in memory and already covers all shards
+    @Override
+    public List<Employee> searchEmployees(String query, int limit) {
+        return shardService.searchEmployees(query, limit);
+    }
+
+    //items whose email is held elsewhere get CONFLICT, the others are saved on the hash shard of their email
+    @Override
+    public List<BulkItemResult> saveEmployees(List<Employee> employees) {
+        List<BulkItemResult> results = new ArrayList<>(Collections.nCopies(employees.size(), null));
+        List<Integer> positions = new ArrayList<>();
+        List<Employee> claimed = new ArrayList<>();
+        List<String> claimedEmails = new ArrayList<>();
+        try {
+            for (int i = 0; i < employees.size(); i++) {
+                Employee employee = employees.get(i);
+                String email = employee == null ? null : employee.getEmail();
+                if (email != null && !emailDirectory.claim(email, null)) {
+                    results.set(i, new BulkItemResult(i, null, BulkItemStatus.CONFLICT, conflictMessage(email)));
+                    continue;
+                }
+                if (email != null) {
+                    claimedEmails.add(email);
+                }
+                positions.add(i);
+                claimed.add(employee);
+            }
+            List<BulkItemResult> saved = bulk(claimed,
+                    employee -> employee == null || employee.getEmail() == null ? 0 : shardOf(employee.getEmail()),
+                    shardService::saveEmployees);
+            return merge(results, saved, positions);
+        } finally {
+            emailDirectory.settle(claimedEmails);
+        }
+    }
+
+    //items whose new email is held by another employee get CONFLICT, the others are updated on their shard
+    @Override
+    public List<BulkItemResult> updateEmployees(List<Employee> employees) {
+        List<Long> ids = new ArrayList<>();
+        for (Employee employee : employees) {
+            if (employee != null && employee.getId() != null) {
+                ids.add(employee.getId());
+            }
+        }
+        List<HeldEmail> held = heldEmails(emailDirectory.emailsOf(ids));
+        List<BulkItemResult> results = new ArrayList<>(Collections.nCopies(employees.size(), null));
+        List<Integer> positions = new ArrayList<>();
+        List<Employee> claimed = new ArrayList<>();
+        try {
+            for (int i = 0; i < employees.size(); i++) {
+                Employee employee = employees.get(i);
+                if (employee != null && employee.getId() != null && employee.getEmail() != null) {
+                    if (!emailDirectory.claim(employee.getEmail(), employee.getId())) {
+                        results.set(i, new BulkItemResult(i, employee.getId(), BulkItemStatus.CONFLICT, conflictMessage(employee.getEmail())));
+                        continue;
+                    }
+                    held.add(new HeldEmail(employee.getId(), employee.getEmail()));
+                }
+                positions.add(i);
+                claimed.add(employee);
+            }
+            List<BulkItemResult> updated = bulk(claimed,
+                    employee -> employee == null || employee.getId() == null ? 0 : shardRouter.shardForId(employee.getId()),
+                    shardService::updateEmployees);
+            return merge(results, updated, positions);
+        } finally {
+            releaseUnused(held);
+        }
+    }
+
+    @Override
+    public List<BulkItemResult> deleteEmployees(List<Long> ids) {
+        List<Long> requestedIds = new ArrayList<>();
+        for (Long id : ids) {
+            if (id != null) {
+                requestedIds.add(id);
+            }
+        }
+        List<HeldEmail> held = heldEmails(emailDirectory.emailsOf(requestedIds));
+        try {
+            return bulk(ids, id -> id == null ? 0 : shardRouter.shardForId(id), shardService::deleteEmployees);
+        } finally {
+            releaseUnused(held);
+        }
+    }
+
+    private int shardOf(String email) {
+        return email == null ? 0 : shardRouter.shardForEmail(email);
+    }
+
+    //the new email is claimed before the row can get it. Afterwards, whether the update went through or not,
+    //the claims the row does not use are released: the previous email, or the new one after a failure
+    private <T> T withEmail(Long id, String email, Supplier<T> update) {
+        if (id == null || email == null) {
+            return update.get();
+        }
+        List<HeldEmail> held = heldEmails(emailDirectory.emailsOf(List.of(id)));
+        if (!emailDirectory.claim(email, id)) {
+            throw new EmployeeAlreadyExistsException(conflictMessage(email));
+        }
+        held.add(new HeldEmail(id, email));
+        try {
+            return update.get();
+        } finally {
+            releaseUnused(held);
+        }
+    }
+
+    private static List<HeldEmail> heldEmails(Map<Long, String> emails) {
+        List<HeldEmail> held = new ArrayList<>();
+        emails.forEach((id, email) -> held.add(new HeldEmail(id, email)));
+        return held;
+    }
+
+    //compares with the rows as they are now, not with what the write was meant to do
+    private void releaseUnused(List<HeldEmail> held) {
+        if (held.isEmpty()) {
+            return;
+        }
+        Map<Long, String> current = emailDirectory.emailsOf(held.stream().map(HeldEmail::employeeId).distinct().toList());
+        for (HeldEmail email : held) {
+            if (!email.email().equals(current.get(email.employeeId()))) {
+                emailDirectory.release(email.email(), email.employeeId());
+            }
+        }
+    }
+
+    private static String conflictMessage(String email) {
+        return "Employee already exists with given email : " + email;
+    }
+
+    //puts the results of the forwarded items back at their request positions, next to the ones decided here
+    private static List<BulkItemResult> merge(List<BulkItemResult> results, List<BulkItemResult> forwarded, List<Integer> positions) {
+        for (BulkItemResult result : forwarded) {
+            result.setIndex(positions.get(result.getIndex()));
+            results.set(result.getIndex(), result);
+        }
+        return results;
+    }
+
+    //splits the items by shard, runs the shards in parallel and puts the results back in request order
+    private <T, R extends BulkItemResult> List<R> bulk(List<T> items, ToIntFunction<T> shardOf,
+                                                       Function<List<T>, List<R>> shardBulk) {
+        List<List<Integer>> positions = new ArrayList<>();
+        List<List<T>> shardItems = new ArrayList<>();
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            positions.add(new ArrayList<>());
+            shardItems.add(new ArrayList<>());
+        }
+        for (int i = 0; i < items.size(); i++) {
+            int shard = shardOf.applyAsInt(items.get(i));
+            positions.get(shard).add(i);
+            shardItems.get(shard).add(items.get(i));
+        }
+        List<List<R>> shardResults = shardRouter.onAllShards(shard ->
+                shardItems.get(shard).isEmpty() ? List.of() : shardBulk.apply(shardItems.get(shard)));
+
+        List<R> results = new ArrayList<>(Collections.nCopies(items.size(), null));
+        for (int shard = 0; shard < shardResults.size(); shard++) {
+            for (R result : shardResults.get(shard)) {
+                result.setIndex(positions.get(shard).get(result.getIndex()));
+                results.set(result.getIndex(), result);
+            }
+        }
+        return results;
+    }
+
+    //k-way merge of pages that are each sorted by id, keeps the limit smallest ids
+    private static <T> List<T> mergePages(List<List<T>> pages, ToLongFunction<T> id, int limit) {
+        int[] positions = new int[pages.size()];
+        List<T> merged = new ArrayList<>(limit);
+        while (merged.size() < limit) {
+            int next = -1;
+            for (int i = 0; i < pages.size(); i++) {
+                if (positions[i] < pages.get(i).size() && (next < 0
+                        || id.applyAsLong(pages.get(i).get(positions[i])) < id.applyAsLong(pages.get(next).get(positions[next])))) {
+                    next = i;
+                }
+            }
+            if (next < 0) {
+                break;
+            }
+            merged.add(pages.get(next).get(positions[next]++));
+        }
+        return merged;
+    }
+
+    private record HeldEmail(long employeeId, String email) {
+    }
+
+    private record MergedSignature(long rowCount, long idSum, long versionSum) implements EmployeeSetSignature {
+
+        @Override
+        public long getRowCount() {
+            return rowCount;
+        }
+
+        @Override
+        public long getIdSum() {
+            return idSum;
+        }
+
+        @Override
+        public long getVersionSum() {
+            return versionSum;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.springboottesting.transfer;
+
+import com.example.springboottesting.model.Employee;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+//compact length-prefixed binary format: a 4 byte magic and a format version, then per employee a
+//record marker followed by its fields, strings as length-prefixed utf-8, nullable fields behind a
+//presence flag; an end marker closes the stream so truncated uploads are detected
+@Component
+public class BinaryEmployeeFormat implements EmployeeFormat {
+
+    private static final int MAGIC = 0x454D5042;
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final byte RECORD = 1;
+
+    private static final byte END = 0;
+
+    @Override
+    public String getName() {
+        return "binary";
+    }
+
+    @Override
+    public String getMediaType() {
+        return "application/x-employee-binary";
+    }
+
+    @Override
+    public EmployeeWriter newWriter(OutputStream outputStream) throws IOException {
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream));
+        output.writeInt(MAGIC);
+        output.writeByte(FORMAT_VERSION);
+        return new EmployeeWriter() {
+            @Override
+            public void write(Employee employee) throws IOException {
+                output.writeByte(RECORD);
+                writeLong(output, employee.getId());
+                writeString(output, employee.getFirstName());
+                writeString(output, employee.getLastName());
+                writeString(output, employee.getEmail());
+                writeLong(output, employee.getVersion());
+            }
+
+            @Override
+            public void finish() throws IOException {
+                output.writeByte(END);
+            }
+
+            @Override
+            public void close() throws IOException {
+                output.flush();
+            }
+        };
+    }
+
+    @Override
+    public EmployeeReader newReader(InputStream inputStream) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream));
+        if (input.readInt() != MAGIC || input.readByte() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("not an employee binary stream");
+        }
+        return () -> {
+            byte marker = input.readByte();
+            if (marker == END) {
+                return null;
+            }
+            if (marker != RECORD) {
+                throw new IllegalArgumentException("corrupt employee binary stream");
+            }
+            return Employee.builder()
+                    .id(readLong(input))
+                    .firstName(readString(input))
+                    .lastName(readString(input))
+                    .email(readString(input))
+                    .version(readLong(input))
+                    .build();
+        };
+    }
+
+    private static void writeLong(DataOutputStream output, Long value) throws IOException {
+        output.writeBoolean(value != null);
+        if (value != null) {
+            output.writeLong(value);
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        output.writeBoolean(value != null);
+        if (value != null) {
+            output.writeUTF(value);
+        }
+    }
+
+    private static Long readLong(DataInputStream input) throws IOException {
+        return input.readBoolean() ? input.readLong() : null;
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+}
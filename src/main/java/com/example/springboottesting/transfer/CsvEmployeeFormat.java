@@ -0,0 +1,168 @@
+package com.example.springboottesting.transfer;
+
+import com.example.springboottesting.model.Employee;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+//rfc 4180 csv with a header line: id,firstName,lastName,email,version. On import the columns are
+//matched by header name, so they may come in any order and id/version may be left out
+@Component
+public class CsvEmployeeFormat implements EmployeeFormat {
+
+    static final List<String> COLUMNS = List.of("id", "firstName", "lastName", "email", "version");
+
+    @Override
+    public String getName() {
+        return "csv";
+    }
+
+    @Override
+    public String getMediaType() {
+        return "text/csv";
+    }
+
+    @Override
+    public EmployeeWriter newWriter(OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writeRecord(writer, COLUMNS);
+        return new EmployeeWriter() {
+            @Override
+            public void write(Employee employee) throws IOException {
+                List<String> values = new ArrayList<>(COLUMNS.size());
+                values.add(toString(employee.getId()));
+                values.add(employee.getFirstName());
+                values.add(employee.getLastName());
+                values.add(employee.getEmail());
+                values.add(toString(employee.getVersion()));
+                writeRecord(writer, values);
+            }
+
+            //csv has no end marker
+            @Override
+            public void finish() {
+            }
+
+            @Override
+            public void close() throws IOException {
+                writer.flush();
+            }
+
+            private String toString(Long value) {
+                return value == null ? null : value.toString();
+            }
+        };
+    }
+
+    @Override
+    public EmployeeReader newReader(InputStream inputStream) throws IOException {
+        Reader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        List<String> header = readRecord(reader);
+        if (header == null) {
+            return () -> null;
+        }
+        int firstName = header.indexOf("firstName");
+        int lastName = header.indexOf("lastName");
+        int email = header.indexOf("email");
+        if (firstName < 0 || lastName < 0 || email < 0) {
+            throw new IllegalArgumentException("csv header must contain firstName, lastName and email");
+        }
+        return () -> {
+            List<String> record = readRecord(reader);
+            if (record == null) {
+                return null;
+            }
+            return Employee.builder()
+                    .firstName(get(record, firstName))
+                    .lastName(get(record, lastName))
+                    .email(get(record, email))
+                    .build();
+        };
+    }
+
+    //null is written as an empty field and read back as null, an empty string is quoted so it stays empty
+    private static void writeRecord(Writer writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            if (value.isEmpty() || value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    //null at the end of the input, quoted fields may contain separators, quotes and line breaks
+    private static List<String> readRecord(Reader reader) throws IOException {
+        int c = reader.read();
+        while (c == '\r' || c == '\n') {
+            c = reader.read();
+        }
+        if (c == -1) {
+            return null;
+        }
+        List<String> record = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("unterminated quoted csv field");
+                }
+                if (c == '"') {
+                    c = reader.read();
+                    if (c == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                record.add(valueOf(field, wasQuoted));
+                field.setLength(0);
+                wasQuoted = false;
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                record.add(valueOf(field, wasQuoted));
+                return record;
+            } else {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+
+    private static String valueOf(StringBuilder field, boolean wasQuoted) {
+        return field.length() == 0 && !wasQuoted ? null : field.toString();
+    }
+
+    private static String get(List<String> record, int index) {
+        return index < record.size() ? record.get(index) : null;
+    }
+}
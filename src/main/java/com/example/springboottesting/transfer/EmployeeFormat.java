@@ -0,0 +1,18 @@
+package com.example.springboottesting.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+//a streaming wire format for export and import, one employee at a time
+public interface EmployeeFormat {
+
+    //value of the format request parameter
+    String getName();
+
+    String getMediaType();
+
+    EmployeeWriter newWriter(OutputStream outputStream) throws IOException;
+
+    EmployeeReader newReader(InputStream inputStream) throws IOException;
+}
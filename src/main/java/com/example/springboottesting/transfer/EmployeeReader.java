@@ -0,0 +1,11 @@
+package com.example.springboottesting.transfer;
+
+import com.example.springboottesting.model.Employee;
+
+import java.io.IOException;
+
+public interface EmployeeReader {
+
+    //null at the end of the stream
+    Employee read() throws IOException;
+}
@@ -0,0 +1,112 @@
+package com.example.springboottesting.transfer;
+
+import com.example.springboottesting.dto.BulkItemResult;
+import com.example.springboottesting.dto.ImportResult;
+import com.example.springboottesting.model.Employee;
+import com.example.springboottesting.service.EmployeeService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+//moves the employee table between an http body and the database without materializing it:
+//export reads through the cursor of EmployeeService.streamAllEmployees, import writes chunks of
+//IMPORT_CHUNK_SIZE rows through EmployeeService.saveEmployees (one transaction and jdbc batches per chunk)
+@Service
+@Profile("!reactive")
+public class EmployeeTransferService {
+
+    private static final Logger log = LoggerFactory.getLogger(EmployeeTransferService.class);
+
+    static final int IMPORT_CHUNK_SIZE = 1000;
+
+    private final EmployeeService employeeService;
+
+    private final Map<String, EmployeeFormat> formats = new HashMap<>();
+
+    public EmployeeTransferService(EmployeeService employeeService, List<EmployeeFormat> formats) {
+        this.employeeService = employeeService;
+        for (EmployeeFormat format : formats) {
+            this.formats.put(format.getName(), format);
+        }
+    }
+
+    public Optional<EmployeeFormat> getFormat(String name) {
+        return Optional.ofNullable(formats.get(name));
+    }
+
+    //returns the number of exported rows
+    public long exportEmployees(EmployeeFormat format, OutputStream outputStream) throws IOException {
+        long start = System.nanoTime();
+        long[] rows = {0};
+        try (EmployeeWriter writer = format.newWriter(outputStream)) {
+            employeeService.streamAllEmployees(employee -> {
+                try {
+                    writer.write(employee);
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        log.info("Exported {} employees as {} in {} ms ({} rows/s)", rows[0], format.getName(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), rowsPerSecond(rows[0], elapsedNanos));
+        return rows[0];
+    }
+
+    //chunks are committed as they are read, a failure part way through keeps the chunks written so far
+    public ImportResult importEmployees(EmployeeFormat format, InputStream inputStream) throws IOException {
+        long start = System.nanoTime();
+        ImportResult result = new ImportResult();
+        EmployeeReader reader = format.newReader(inputStream);
+        List<Employee> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        Employee employee;
+        while ((employee = reader.read()) != null) {
+            chunk.add(employee);
+            if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                saveChunk(chunk, result);
+                chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+            }
+        }
+        saveChunk(chunk, result);
+        long elapsedNanos = System.nanoTime() - start;
+        result.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        result.setRowsPerSecond(rowsPerSecond(result.getRows(), elapsedNanos));
+        log.info("Imported {} employees as {} in {} ms ({} rows/s)", result.getRows(), format.getName(),
+                result.getElapsedMillis(), result.getRowsPerSecond());
+        return result;
+    }
+
+    private void saveChunk(List<Employee> chunk, ImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        for (BulkItemResult itemResult : employeeService.saveEmployees(chunk)) {
+            switch (itemResult.getStatus()) {
+                case CREATED -> result.setCreated(result.getCreated() + 1);
+                case CONFLICT -> result.setConflicts(result.getConflicts() + 1);
+                default -> result.setInvalid(result.getInvalid() + 1);
+            }
+        }
+        result.setRows(result.getRows() + chunk.size());
+    }
+
+    private static long rowsPerSecond(long rows, long elapsedNanos) {
+        return elapsedNanos == 0 ? rows : rows * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+}
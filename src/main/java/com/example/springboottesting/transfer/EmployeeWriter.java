@@ -0,0 +1,19 @@
+package com.example.springboottesting.transfer;
+
+import com.example.springboottesting.model.Employee;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+public interface EmployeeWriter extends Closeable {
+
+    void write(Employee employee) throws IOException;
+
+    //ends the stream after the last employee was written, not called when the export fails part way
+    //through, so formats with an end marker let the importer detect the truncated stream
+    void finish() throws IOException;
+
+    //only flushes, the underlying stream is left open
+    @Override
+    void close() throws IOException;
+}
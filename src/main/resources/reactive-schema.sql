@@ -0,0 +1,9 @@
+create table if not exists employees (
+    id bigint auto_increment primary key,
+    first_name varchar(255) not null,
+    last_name varchar(255) not null,
+    email varchar(255) not null,
+    version bigint not null default 0,
+    constraint uk_employees_email unique (email)
+);
+create index if not exists idx_employees_first_name_last_name on employees (first_name, last_name);
@@ -0,0 +1,14 @@
+create sequence if not exists employees_seq start with 1 increment by 50;
+create table if not exists employees (
+    id bigint not null primary key,
+    first_name varchar(255) not null,
+    last_name varchar(255) not null,
+    email varchar(255) not null,
+    version bigint,
+    constraint uk_employees_email unique (email)
+);
+create index if not exists idx_employees_first_name_last_name on employees (first_name, last_name);
+create table if not exists employee_emails (
+    email varchar(255) not null primary key,
+    employee_id bigint
+);
@@ -0,0 +1,124 @@
+package com.example.springboottesting.changes;
+
+import com.example.springboottesting.event.EmployeeChangedEvent;
+import com.example.springboottesting.exception.EmployeeAlreadyExistsException;
+import com.example.springboottesting.model.Employee;
+import com.example.springboottesting.model.EmployeeChange;
+import com.example.springboottesting.service.EmployeeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class EmployeeChangeFeedTest {
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeChangeFeed employeeChangeFeed;
+
+    private long since;
+
+    @BeforeEach
+    public void setup(){
+        //publish whatever other tests left behind, only changes made here come after since
+        employeeChangeFeed.relayPending();
+        since=employeeChangeFeed.getLastSequence();
+    }
+
+    //test save, patch and delete are published in order with consecutive sequence numbers
+    @DisplayName("test save, patch and delete are published in order with consecutive sequence numbers")
+    @Test
+    public void givenWrites_whenPoll_thenReturnChangesInOrder() throws Exception {
+        //given
+        Employee employee=employeeService.saveEmployee(Employee.builder()
+                .firstName("ramesh").lastName("fadatare").email("changes-ramesh@abc.com").build());
+        employeeService.patchEmployee(employee.getId(),Employee.builder().lastName("f").build());
+        employeeService.deleteEmployee(employee.getId());
+
+        //when
+        employeeChangeFeed.relayPending();
+        List<EmployeeChange> changes=employeeChangeFeed.poll(since,10,Duration.ZERO).get(10,TimeUnit.SECONDS);
+
+        //then
+        assertEquals(3,changes.size());
+        assertEquals(List.of(EmployeeChangedEvent.Type.SAVED,EmployeeChangedEvent.Type.PATCHED,EmployeeChangedEvent.Type.DELETED),
+                changes.stream().map(EmployeeChange::getType).toList());
+        assertEquals(List.of(since+1,since+2,since+3),changes.stream().map(EmployeeChange::getSequence).toList());
+        assertTrue(changes.get(0).getEmployee().contains("\"email\":\"changes-ramesh@abc.com\""));
+        assertEquals("{\"lastName\":\"f\"}",changes.get(1).getEmployee());
+        assertNull(changes.get(2).getEmployee());
+    }
+
+    //test a rolled back write leaves no change behind
+    @DisplayName("test a rolled back write leaves no change behind")
+    @Test
+    public void givenDuplicateEmail_whenSaveEmployee_thenNoChangeIsPublished() throws Exception {
+        //given
+        Employee employee=employeeService.saveEmployee(Employee.builder()
+                .firstName("john").lastName("cena").email("changes-john@abc.com").build());
+
+        //when
+        assertThrows(EmployeeAlreadyExistsException.class,()->employeeService.saveEmployee(Employee.builder()
+                .firstName("john").lastName("doe").email("changes-john@abc.com").build()));
+        employeeChangeFeed.relayPending();
+
+        //then
+        List<EmployeeChange> changes=employeeChangeFeed.poll(since,10,Duration.ZERO).get(10,TimeUnit.SECONDS);
+        assertEquals(1,changes.size());
+        assertEquals(employee.getId(),changes.get(0).getEmployeeId());
+    }
+
+    //test a long poll without changes waits for the next write
+    @DisplayName("test a long poll without changes waits for the next write")
+    @Test
+    public void givenNoChanges_whenPoll_thenCompleteOnNextWrite() throws Exception {
+        //given
+        CompletableFuture<List<EmployeeChange>> poll=employeeChangeFeed.poll(since,10,Duration.ofSeconds(30));
+        Thread.sleep(200);
+        assertFalse(poll.isDone());
+
+        //when
+        employeeService.saveEmployee(Employee.builder()
+                .firstName("tony").lastName("stark").email("changes-tony@abc.com").build());
+
+        //then
+        List<EmployeeChange> changes=poll.get(10,TimeUnit.SECONDS);
+        assertEquals(1,changes.size());
+        assertEquals(since+1,changes.get(0).getSequence());
+    }
+
+    //test the changes of a bulk write are published in the order of its items
+    @DisplayName("test the changes of a bulk write are published in the order of its items")
+    @Test
+    public void givenBulkSave_whenPoll_thenReturnOneChangePerEmployeeInOrder() throws Exception {
+        //given
+        List<Employee> employees=new ArrayList<>();
+        for(int i=0;i<120;i++){
+            employees.add(Employee.builder().firstName("bulk").lastName("change").email("changes-bulk"+i+"@abc.com").build());
+        }
+
+        //when
+        employeeService.saveEmployees(employees);
+        employeeChangeFeed.relayPending();
+        List<EmployeeChange> changes=employeeChangeFeed.poll(since,200,Duration.ZERO).get(10,TimeUnit.SECONDS);
+
+        //then
+        assertEquals(120,changes.size());
+        for(int i=0;i<120;i++){
+            assertEquals(since+i+1,changes.get(i).getSequence());
+            assertTrue(changes.get(i).getEmployee().contains("\"email\":\"changes-bulk"+i+"@abc.com\""));
+        }
+    }
+}
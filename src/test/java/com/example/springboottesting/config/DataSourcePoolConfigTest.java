@@ -0,0 +1,29 @@
+package com.example.springboottesting.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+public class DataSourcePoolConfigTest {
+
+    @Autowired
+    private HikariDataSource dataSource;
+
+    //pool settings and driver statement cache are applied
+    @DisplayName("pool settings and driver statement cache are applied")
+    @Test
+    public void givenPoolProperties_whenStarted_thenPoolAndDriverAreConfigured(){
+        assertEquals(1000,dataSource.getConnectionTimeout());
+        assertEquals(10000,dataSource.getLeakDetectionThreshold());
+        assertEquals(20,dataSource.getMinimumIdle());
+        String queryCacheSize=new JdbcTemplate(dataSource).queryForObject(
+                "select setting_value from information_schema.settings where setting_name='QUERY_CACHE_SIZE'",String.class);
+        assertEquals("64",queryCacheSize);
+    }
+}
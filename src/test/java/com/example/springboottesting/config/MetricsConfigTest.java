@@ -0,0 +1,43 @@
+package com.example.springboottesting.config;
+
+import com.example.springboottesting.model.Employee;
+import com.example.springboottesting.repository.EmployeeRepository;
+import com.example.springboottesting.service.EmployeeService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+public class MetricsConfigTest {
+
+    @MockBean
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    //test service methods are timed per method
+    @DisplayName("test service methods are timed per method")
+    @Test
+    public void givenServiceCall_whenGetAllEmployees_thenRecordServiceTimer() {
+        when(employeeRepository.findAll()).thenReturn(List.of(new Employee()));
+
+        employeeService.getAllEmployees();
+
+        Timer timer = meterRegistry.find(MetricsConfig.SERVICE_TIMER).tag("method", "getAllEmployees").timer();
+        assertNotNull(timer);
+        assertTrue(timer.count() >= 1);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.springboottesting.config;
+
+import com.example.springboottesting.dto.EmployeeSetSignature;
+import com.example.springboottesting.dto.EmployeeSummary;
+import com.example.springboottesting.model.Employee;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.data.projection.TargetAware;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NativeRuntimeHintsTest {
+
+    //hints cover json bodies, projections and scripts
+    @DisplayName("hints cover json bodies, projections and scripts")
+    @Test
+    public void givenRegistrar_whenRegisterHints_thenCoverReflectionProxiesAndResources() throws NoSuchMethodException {
+        RuntimeHints hints=new RuntimeHints();
+
+        new NativeRuntimeHints().registerHints(hints,getClass().getClassLoader());
+
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(Employee.class.getMethod("getEmail")).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(EmployeeSummary.class)
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.proxies()
+                .forInterfaces(AopProxyUtils.completeJdkProxyInterfaces(EmployeeSetSignature.class,TargetAware.class)).test(hints));
+        assertTrue(RuntimeHintsPredicates.resource().forResource("sharded-schema.sql").test(hints));
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.springboottesting.controller;
+
+import com.example.springboottesting.changes.EmployeeChangeFeed;
+import com.example.springboottesting.event.EmployeeChangedEvent;
+import com.example.springboottesting.exception.ChangesExpiredException;
+import com.example.springboottesting.model.EmployeeChange;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(EmployeeChangeController.class)
+public class EmployeeChangeControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private EmployeeChangeFeed employeeChangeFeed;
+
+    //get changes after a sequence
+    @DisplayName("get changes after a sequence")
+    @Test
+    public void givenChanges_whenGetChanges_thenReturnChangesAndNextSequence() throws Exception {
+        //given
+        List<EmployeeChange> changes=List.of(
+                new EmployeeChange(10L,6L,EmployeeChangedEvent.Type.SAVED,1L,"{\"id\":1,\"email\":\"harshal@abc.com\"}",Instant.now()),
+                new EmployeeChange(11L,7L,EmployeeChangedEvent.Type.DELETED,1L,null,Instant.now()));
+        when(employeeChangeFeed.poll(5L,100,Duration.ofSeconds(30))).thenReturn(CompletableFuture.completedFuture(changes));
+
+        //when
+        MvcResult result=mockMvc.perform(get("/api/employees/changes").param("since","5"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //then
+        mockMvc.perform(asyncDispatch(result))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.next",is(7)))
+                .andExpect(jsonPath("$.changes[0].sequence",is(6)))
+                .andExpect(jsonPath("$.changes[0].type",is("SAVED")))
+                .andExpect(jsonPath("$.changes[0].employee.email",is("harshal@abc.com")))
+                .andExpect(jsonPath("$.changes[0].id").doesNotExist())
+                .andExpect(jsonPath("$.changes[1].employee",nullValue()));
+    }
+
+    //get changes that were already pruned
+    @DisplayName("get changes that were already pruned")
+    @Test
+    public void givenPrunedSequence_whenGetChanges_thenReturnGone() throws Exception {
+        //given
+        when(employeeChangeFeed.poll(anyLong(),anyInt(),any(Duration.class)))
+                .thenThrow(new ChangesExpiredException("Changes after 1 are no longer retained"));
+
+        //when then
+        mockMvc.perform(get("/api/employees/changes").param("since","1"))
+                .andDo(print())
+                .andExpect(status().isGone());
+    }
+
+    //get changes with too large limit
+    @DisplayName("get changes with too large limit")
+    @Test
+    public void givenTooLargeLimit_whenGetChanges_thenReturnBadRequest() throws Exception {
+        //when
+        MvcResult result=mockMvc.perform(get("/api/employees/changes").param("limit","5000")).andReturn();
+
+        //then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(employeeChangeFeed);
+    }
+}
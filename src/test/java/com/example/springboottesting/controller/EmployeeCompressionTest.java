@@ -0,0 +1,70 @@
+package com.example.springboottesting.controller;
+
+import com.example.springboottesting.model.Employee;
+import com.example.springboottesting.repository.EmployeeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//compression is done by tomcat, so this runs against the real server instead of MockMvc
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class EmployeeCompressionTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @BeforeEach
+    public void setup(){
+        List<Employee> employees=new ArrayList<>();
+        for(int i=0;i<50;i++){
+            employees.add(Employee.builder().firstName("harshal").lastName("aher").email("compressed"+i+"@abc.com").build());
+        }
+        employeeRepository.saveAll(employees);
+    }
+
+    @AfterEach
+    public void tearDown(){
+        employeeRepository.deleteAll();
+    }
+
+    //keyset pages carry an etag and are still gzip compressed
+    @DisplayName("keyset pages carry an etag and are still gzip compressed")
+    @Test
+    public void givenGzipAccepted_whenGetEmployeePage_thenCompressedWithWeakETag() throws Exception {
+        HttpRequest request=HttpRequest.newBuilder(URI.create("http://localhost:"+port+"/api/employees?limit=50"))
+                .header("Accept","application/json")
+                .header("Accept-Encoding","gzip")
+                .build();
+
+        HttpResponse<byte[]> response=httpClient.send(request,HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(200,response.statusCode());
+        assertEquals("gzip",response.headers().firstValue("Content-Encoding").orElse(null));
+        assertTrue(response.headers().firstValue("ETag").orElseThrow().startsWith("W/"));
+        assertTrue(response.headers().allValues("Vary").stream()
+                .anyMatch(vary->List.of(vary.toLowerCase().split("\\s*,\\s*")).contains("accept")));
+        try(GZIPInputStream body=new GZIPInputStream(new ByteArrayInputStream(response.body()))){
+            assertTrue(new String(body.readAllBytes()).contains("compressed49@abc.com"));
+        }
+    }
+}
@@ -1,8 +1,18 @@
 package com.example.springboottesting.controller;
 
+import com.example.springboottesting.dto.BulkItemResult;
+import com.example.springboottesting.dto.BulkItemStatus;
+import com.example.springboottesting.dto.EmployeeLookupRequest;
+import com.example.springboottesting.dto.EmployeeLookupResult;
+import com.example.springboottesting.dto.EmployeeSetSignature;
+import com.example.springboottesting.dto.EmployeeSummary;
+import com.example.springboottesting.exception.EmployeeAlreadyExistsException;
+import com.example.springboottesting.exception.ResourceNotFoundException;
 import com.example.springboottesting.model.Employee;
+import com.example.springboottesting.protobuf.EmployeeProtobufHttpMessageConverter;
 import com.example.springboottesting.service.EmployeeService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
 import com.jayway.jsonpath.ReadContext;
@@ -14,23 +24,34 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.ResultMatcher;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.CannotCreateTransactionException;
 
+import java.io.ByteArrayInputStream;
+import java.sql.SQLTransientConnectionException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(EmployeeController.class)
@@ -230,4 +251,519 @@ public class EmployeeControllerTest {
         response.andDo(print())
                 .andExpect(status().isOk());
     }
+
+    //get employees page using keyset cursor
+    @DisplayName("get employees page using keyset cursor")
+    @Test
+    public void givenAfterAndLimit_whenGetEmployeePage_thenReturnPageWithNextCursor() throws Exception {
+        //given
+        Employee employee1 = Employee.builder()
+                .id(11L)
+                .firstName("harshal")
+                .lastName("aher")
+                .email("harshal@abc.com")
+                .build();
+
+        Employee employee2 = Employee.builder()
+                .id(12L)
+                .firstName("raju")
+                .lastName("rastogi")
+                .email("raju@abc.com")
+                .build();
+        when(employeeService.getEmployeesAfter(10L,2)).thenReturn(List.of(employee1,employee2));
+
+        //when
+        ResultActions response = mockMvc.perform(get("/api/employees")
+                .param("after","10")
+                .param("limit","2"));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.size()",is(2)))
+                .andExpect(jsonPath("$.nextCursor",is(12)));
+    }
+
+    //get last employees page has no next cursor
+    @DisplayName("get last employees page has no next cursor")
+    @Test
+    public void givenLastPage_whenGetEmployeePage_thenReturnNullNextCursor() throws Exception {
+        //given
+        Employee employee = Employee.builder()
+                .id(11L)
+                .firstName("harshal")
+                .lastName("aher")
+                .email("harshal@abc.com")
+                .build();
+        when(employeeService.getEmployeesAfter(10L,2)).thenReturn(List.of(employee));
+
+        //when
+        ResultActions response = mockMvc.perform(get("/api/employees")
+                .param("after","10")
+                .param("limit","2"));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.size()",is(1)))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    //get employees page with limit out of range
+    @DisplayName("get employees page with limit out of range")
+    @Test
+    public void givenTooLargeLimit_whenGetEmployeePage_thenReturnBadRequest() throws Exception {
+        //when
+        ResultActions response = mockMvc.perform(get("/api/employees")
+                .param("limit",String.valueOf(EmployeeController.MAX_PAGE_SIZE+1)));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isBadRequest());
+        verify(employeeService,never()).getEmployeesAfter(anyLong(),anyInt());
+    }
+
+    //stream all employees as ndjson
+    @DisplayName("stream all employees as ndjson")
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenEmployees_whenStreamAllEmployees_thenReturnOneJsonObjectPerLine() throws Exception {
+        //given
+        Employee employee1 = Employee.builder()
+                .id(1L)
+                .firstName("harshal")
+                .lastName("aher")
+                .email("harshal@abc.com")
+                .build();
+
+        Employee employee2 = Employee.builder()
+                .id(2L)
+                .firstName("raju")
+                .lastName("rastogi")
+                .email("raju@abc.com")
+                .build();
+        doAnswer(invocation -> {
+            Consumer<Employee> action = invocation.getArgument(0);
+            action.accept(employee1);
+            action.accept(employee2);
+            return null;
+        }).when(employeeService).streamAllEmployees(any(Consumer.class));
+
+        //when
+        MvcResult result = mockMvc.perform(get("/api/employees/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //then
+        mockMvc.perform(asyncDispatch(result))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(objectMapper.writeValueAsString(employee1)+"\n"
+                        +objectMapper.writeValueAsString(employee2)+"\n"));
+    }
+
+    //bulk create employees
+    @DisplayName("bulk create employees")
+    @Test
+    public void givenEmployeeList_whenCreateEmployees_thenReturnPerItemResults() throws Exception {
+        //given
+        Employee employee1 = Employee.builder()
+                .firstName("harshal")
+                .lastName("aher")
+                .email("harshal@abc.com")
+                .build();
+
+        Employee employee2 = Employee.builder()
+                .firstName("raju")
+                .lastName("rastogi")
+                .email("harshal@abc.com")
+                .build();
+        when(employeeService.saveEmployees(anyList())).thenReturn(List.of(
+                new BulkItemResult(0,1L,BulkItemStatus.CREATED,null),
+                new BulkItemResult(1,null,BulkItemStatus.CONFLICT,"Employee already exists with given email : harshal@abc.com")));
+
+        //when
+        ResultActions response = mockMvc.perform(post("/api/employees/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(employee1,employee2))));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()",is(2)))
+                .andExpect(jsonPath("$[0].status",is("CREATED")))
+                .andExpect(jsonPath("$[1].status",is("CONFLICT")));
+    }
+
+    //bulk delete employees
+    @DisplayName("bulk delete employees")
+    @Test
+    public void givenEmployeeIds_whenDeleteEmployees_thenReturnPerItemResults() throws Exception {
+        //given
+        when(employeeService.deleteEmployees(List.of(1L,2L))).thenReturn(List.of(
+                new BulkItemResult(0,1L,BulkItemStatus.DELETED,null),
+                new BulkItemResult(1,2L,BulkItemStatus.NOT_FOUND,"Employee not found with id : 2")));
+
+        //when
+        ResultActions response = mockMvc.perform(delete("/api/employees/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(1L,2L))));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status",is("DELETED")))
+                .andExpect(jsonPath("$[1].status",is("NOT_FOUND")));
+        verify(employeeService,never()).deleteEmployee(anyLong());
+    }
+
+    //lookup employees by ids
+    @DisplayName("lookup employees by ids")
+    @Test
+    public void givenIds_whenLookupEmployees_thenReturnResultPerIdInRequestOrder() throws Exception {
+        //given
+        Employee employee = Employee.builder()
+                .id(1L)
+                .firstName("harshal")
+                .lastName("aher")
+                .email("harshal@abc.com")
+                .build();
+        when(employeeService.getEmployeesByIds(List.of(2L,1L))).thenReturn(List.of(
+                new EmployeeLookupResult(0,2L,null,BulkItemStatus.NOT_FOUND,"Employee not found with id : 2",null),
+                new EmployeeLookupResult(1,1L,null,BulkItemStatus.FOUND,null,employee)));
+
+        //when
+        ResultActions response = mockMvc.perform(post("/api/employees/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new EmployeeLookupRequest(List.of(2L,1L),null))));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status",is("NOT_FOUND")))
+                .andExpect(jsonPath("$[1].status",is("FOUND")))
+                .andExpect(jsonPath("$[1].employee.email",is("harshal@abc.com")));
+        verify(employeeService,never()).getEmployeeById(anyLong());
+    }
+
+    //lookup employees with both ids and emails
+    @DisplayName("lookup employees with both ids and emails")
+    @Test
+    public void givenIdsAndEmails_whenLookupEmployees_thenReturnBadRequest() throws Exception {
+        //when
+        ResultActions response = mockMvc.perform(post("/api/employees/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new EmployeeLookupRequest(List.of(1L),List.of("harshal@abc.com")))));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(employeeService);
+    }
+
+    //create employee with existing email
+    @DisplayName("create employee with existing email")
+    @Test
+    public void givenExistingEmail_whenCreateEmployee_thenReturnConflict() throws Exception {
+        //given
+        Employee employee = Employee.builder()
+                .firstName("harshal")
+                .lastName("aher")
+                .email("harshal@abc.com")
+                .build();
+        when(employeeService.saveEmployee(any(Employee.class)))
+                .thenThrow(new EmployeeAlreadyExistsException("Employee already exists with given email : harshal@abc.com"));
+
+        //when
+        ResultActions response = mockMvc.perform(post("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(employee)));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isConflict());
+    }
+
+    //get employee summaries page
+    @DisplayName("get employee summaries page")
+    @Test
+    public void givenSummaries_whenGetEmployeeSummaries_thenReturnSummaryPage() throws Exception {
+        //given
+        when(employeeService.getEmployeeSummariesAfter(0L,100)).thenReturn(List.of(new EmployeeSummary(1L,"harshal","aher")));
+
+        //when
+        ResultActions response = mockMvc.perform(get("/api/employees/summaries"));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].firstName",is("harshal")))
+                .andExpect(jsonPath("$.content[0].email").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    //get employees page with selected fields
+    @DisplayName("get employees page with selected fields")
+    @Test
+    public void givenFields_whenGetEmployeeFieldsPage_thenReturnOnlySelectedFields() throws Exception {
+        //given
+        when(employeeService.getEmployeeFieldsAfter(List.of("email"),0L,1))
+                .thenReturn(List.of(Map.of("id",5L,"email","harshal@abc.com")));
+
+        //when
+        ResultActions response = mockMvc.perform(get("/api/employees")
+                .param("limit","1")
+                .param("fields","email"));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].email",is("harshal@abc.com")))
+                .andExpect(jsonPath("$.content[0].firstName").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor",is(5)));
+    }
+
+    //get employees page with unknown field
+    @DisplayName("get employees page with unknown field")
+    @Test
+    public void givenUnknownField_whenGetEmployeeFieldsPage_thenReturnBadRequest() throws Exception {
+        //when
+        ResultActions response = mockMvc.perform(get("/api/employees")
+                .param("limit","1")
+                .param("fields","salary"));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+
+    //patch employee positive scenario
+    @DisplayName("patch employee positive scenario")
+    @Test
+    public void givenPatch_whenPatchEmployee_thenReturnNoContent() throws Exception {
+        //given
+        doNothing().when(employeeService).patchEmployee(eq(1L),any(Employee.class));
+
+        //when
+        ResultActions response = mockMvc.perform(patch("/api/employees/{id}",1L)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"lastName\":\"kumar\",\"version\":0}"));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isNoContent());
+        verify(employeeService,never()).getEmployeeById(anyLong());
+    }
+
+    //patch employee negative scenario
+    @DisplayName("patch employee negative scenario")
+    @Test
+    public void givenMissingEmployee_whenPatchEmployee_thenReturnNotFound() throws Exception {
+        //given
+        doThrow(new ResourceNotFoundException("Employee not found with id : 1"))
+                .when(employeeService).patchEmployee(eq(1L),any(Employee.class));
+
+        //when
+        ResultActions response = mockMvc.perform(patch("/api/employees/{id}",1L)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"lastName\":\"kumar\"}"));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isNotFound());
+    }
+
+    //patch employee with stale version
+    @DisplayName("patch employee with stale version")
+    @Test
+    public void givenStaleVersion_whenPatchEmployee_thenReturnConflict() throws Exception {
+        //given
+        doThrow(new ObjectOptimisticLockingFailureException(Employee.class,1L))
+                .when(employeeService).patchEmployee(eq(1L),any(Employee.class));
+
+        //when
+        ResultActions response = mockMvc.perform(patch("/api/employees/{id}",1L)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"lastName\":\"kumar\",\"version\":3}"));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isConflict());
+    }
+
+    //get employee by id returns version etag
+    @DisplayName("get employee by id returns version etag")
+    @Test
+    public void givenVersionedEmployee_whenGetEmployeeById_thenReturnVersionETag() throws Exception {
+        //given
+        Employee employee = Employee.builder()
+                .id(1L)
+                .firstName("harshal")
+                .lastName("aher")
+                .email("harshal@abc.com")
+                .version(3L)
+                .build();
+        when(employeeService.getEmployeeById(1L)).thenReturn(Optional.of(employee));
+
+        //when
+        ResultActions response = mockMvc.perform(get("/api/employees/{id}",1L));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag","W/\"3\""))
+                .andExpect(header().string("Vary","Accept"))
+                .andExpect(header().string("Cache-Control","no-cache"));
+    }
+
+    //get employee by id with current etag
+    @DisplayName("get employee by id with current etag")
+    @Test
+    public void givenCurrentETag_whenGetEmployeeById_thenReturnNotModifiedWithoutLoading() throws Exception {
+        //given
+        when(employeeService.getEmployeeVersion(1L)).thenReturn(Optional.of(3L));
+
+        //when
+        ResultActions response = mockMvc.perform(get("/api/employees/{id}",1L)
+                .header("If-None-Match","\"3\""));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("Vary","Accept"));
+        verify(employeeService,never()).getEmployeeById(anyLong());
+    }
+
+    //get employee by id with stale etag
+    @DisplayName("get employee by id with stale etag")
+    @Test
+    public void givenStaleETag_whenGetEmployeeById_thenReturnEmployee() throws Exception {
+        //given
+        Employee employee = Employee.builder()
+                .id(1L)
+                .firstName("harshal")
+                .lastName("aher")
+                .email("harshal@abc.com")
+                .version(4L)
+                .build();
+        when(employeeService.getEmployeeVersion(1L)).thenReturn(Optional.of(4L));
+        when(employeeService.getEmployeeById(1L)).thenReturn(Optional.of(employee));
+
+        //when
+        ResultActions response = mockMvc.perform(get("/api/employees/{id}",1L)
+                .header("If-None-Match","\"3\""));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag","W/\"4\""));
+    }
+
+    //get employees page with current collection etag
+    @DisplayName("get employees page with current collection etag")
+    @Test
+    public void givenCurrentPageETag_whenGetEmployeePage_thenReturnNotModifiedWithoutLoading() throws Exception {
+        //given
+        Employee employee1 = Employee.builder().id(11L).version(1L).build();
+        Employee employee2 = Employee.builder().id(12L).version(2L).build();
+        when(employeeService.getEmployeesAfter(10L,2)).thenReturn(List.of(employee1,employee2));
+        EmployeeSetSignature signature = mock(EmployeeSetSignature.class);
+        when(signature.getRowCount()).thenReturn(2L);
+        when(signature.getIdSum()).thenReturn(23L);
+        when(signature.getVersionSum()).thenReturn(3L);
+        when(employeeService.getEmployeePageSignature(10L,2)).thenReturn(signature);
+
+        //when
+        String etag = mockMvc.perform(get("/api/employees").param("after","10").param("limit","2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag","W/\"2-23-3\""))
+                .andReturn().getResponse().getHeader("ETag");
+        ResultActions response = mockMvc.perform(get("/api/employees").param("after","10").param("limit","2")
+                .header("If-None-Match",etag));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isNotModified());
+        verify(employeeService,times(1)).getEmployeesAfter(10L,2);
+    }
+
+    //search employees
+    @DisplayName("search employees")
+    @Test
+    public void givenQuery_whenSearchEmployees_thenReturnMatches() throws Exception {
+        //given
+        Employee employee = Employee.builder().id(1L).firstName("harshal").lastName("aher").email("harshal@abc.com").build();
+        when(employeeService.searchEmployees("harshl",5)).thenReturn(List.of(employee));
+
+        //when
+        ResultActions response = mockMvc.perform(get("/api/employees/search").param("q","harshl").param("limit","5"));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()",is(1)))
+                .andExpect(jsonPath("$[0].email",is("harshal@abc.com")));
+    }
+
+    //saturated connection pool answers 503
+    @DisplayName("saturated connection pool answers 503")
+    @Test
+    public void givenPoolTimeout_whenGetEmployeeById_thenReturnServiceUnavailable() throws Exception {
+        //given
+        when(employeeService.getEmployeeById(1L)).thenThrow(new CannotCreateTransactionException("Could not open JPA EntityManager for transaction",
+                new SQLTransientConnectionException("HikariPool-1 - Connection is not available, request timed out after 1000ms.")));
+
+        //when
+        ResultActions response = mockMvc.perform(get("/api/employees/{id}",1L));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After","1"));
+    }
+
+    //get all employees as protobuf
+    @DisplayName("get all employees as protobuf")
+    @Test
+    public void givenEmployeeList_whenGetAllEmployeesAsProtobuf_thenReturnEmployeeListMessage() throws Exception {
+        //given
+        List<Employee> employeeList=List.of(
+                Employee.builder().id(1L).firstName("harshal").lastName("aher").email("harshal@abc.com").version(0L).build(),
+                Employee.builder().id(2L).firstName("raju").lastName("rastogi").email("raju@abc.com").version(3L).build());
+        when(employeeService.getAllEmployees()).thenReturn(employeeList);
+
+        //when
+        MvcResult result = mockMvc.perform(get("/api/employees").accept(EmployeeProtobufHttpMessageConverter.APPLICATION_X_PROTOBUF))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(EmployeeProtobufHttpMessageConverter.APPLICATION_X_PROTOBUF))
+                .andReturn();
+
+        //then
+        List<Employee> employees=EmployeeProtobufHttpMessageConverter.readEmployees(
+                new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+        Assertions.assertEquals(2,employees.size());
+        Assertions.assertEquals("raju@abc.com",employees.get(1).getEmail());
+        Assertions.assertEquals(3L,employees.get(1).getVersion());
+    }
+
+    //get all employees as cbor
+    @DisplayName("get all employees as cbor")
+    @Test
+    public void givenEmployeeList_whenGetAllEmployeesAsCbor_thenReturnCborList() throws Exception {
+        //given
+        when(employeeService.getAllEmployees()).thenReturn(List.of(
+                Employee.builder().id(1L).firstName("harshal").lastName("aher").email("harshal@abc.com").version(0L).build()));
+
+        //when
+        MvcResult result = mockMvc.perform(get("/api/employees").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+
+        //then
+        Employee[] employees=new CBORMapper().readValue(result.getResponse().getContentAsByteArray(),Employee[].class);
+        Assertions.assertEquals(1,employees.length);
+        Assertions.assertEquals("harshal@abc.com",employees[0].getEmail());
+    }
 }
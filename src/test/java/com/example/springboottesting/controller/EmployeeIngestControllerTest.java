@@ -0,0 +1,107 @@
+package com.example.springboottesting.controller;
+
+import com.example.springboottesting.dto.IngestStatus;
+import com.example.springboottesting.dto.IngestTicket;
+import com.example.springboottesting.ingest.EmployeeIngestQueue;
+import com.example.springboottesting.model.Employee;
+import com.example.springboottesting.service.EmployeeService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+//EmployeeController with app.ingest.async.enabled=true
+@WebMvcTest(EmployeeController.class)
+public class EmployeeIngestControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private EmployeeService employeeService;
+
+    @MockBean
+    private EmployeeIngestQueue employeeIngestQueue;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Employee employee = Employee.builder()
+            .firstName("harshal")
+            .lastName("aher")
+            .email("harshal@abc.com")
+            .build();
+
+    //create employee is accepted and queued
+    @DisplayName("create employee is accepted and queued")
+    @Test
+    public void givenEmployeeObject_whenCreateEmployee_thenReturnAcceptedWithTrackingId() throws Exception {
+        //given
+        when(employeeIngestQueue.submit(any(Employee.class)))
+                .thenReturn(Optional.of(new IngestTicket("abc",IngestStatus.PENDING,null,null)));
+
+        //when
+        ResultActions response = mockMvc.perform(post("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(employee)));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location","/api/employees/ingest/abc"))
+                .andExpect(jsonPath("$.trackingId",is("abc")))
+                .andExpect(jsonPath("$.status",is("PENDING")));
+        verify(employeeService,never()).saveEmployee(any(Employee.class));
+    }
+
+    //create employee with full queue
+    @DisplayName("create employee with full queue")
+    @Test
+    public void givenFullQueue_whenCreateEmployee_thenReturnTooManyRequests() throws Exception {
+        //given
+        when(employeeIngestQueue.submit(any(Employee.class))).thenReturn(Optional.empty());
+
+        //when
+        ResultActions response = mockMvc.perform(post("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(employee)));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After","1"));
+    }
+
+    //get ingest ticket
+    @DisplayName("get ingest ticket")
+    @Test
+    public void givenTrackingId_whenGetIngestTicket_thenReturnTicket() throws Exception {
+        //given
+        when(employeeIngestQueue.getTicket("abc"))
+                .thenReturn(Optional.of(new IngestTicket("abc",IngestStatus.CREATED,7L,null)));
+
+        //when
+        ResultActions response = mockMvc.perform(get("/api/employees/ingest/{trackingId}","abc"));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status",is("CREATED")))
+                .andExpect(jsonPath("$.id",is(7)));
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.springboottesting.controller;
+
+import com.example.springboottesting.dto.ImportResult;
+import com.example.springboottesting.transfer.CsvEmployeeFormat;
+import com.example.springboottesting.transfer.EmployeeFormat;
+import com.example.springboottesting.transfer.EmployeeTransferService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(EmployeeTransferController.class)
+public class EmployeeTransferControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private EmployeeTransferService employeeTransferService;
+
+    private final EmployeeFormat csv = new CsvEmployeeFormat();
+
+    //export employees as csv
+    @DisplayName("export employees as csv")
+    @Test
+    public void givenCsvFormat_whenExportEmployees_thenStreamAttachment() throws Exception {
+        //given
+        when(employeeTransferService.getFormat("csv")).thenReturn(Optional.of(csv));
+        when(employeeTransferService.exportEmployees(eq(csv),any(OutputStream.class))).thenAnswer(invocation->{
+            OutputStream outputStream=invocation.getArgument(1);
+            outputStream.write("id,firstName,lastName,email,version\r\n".getBytes());
+            return 0L;
+        });
+
+        //when
+        MvcResult result = mockMvc.perform(get("/api/employees/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //then
+        mockMvc.perform(asyncDispatch(result))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(header().string("Content-Disposition","attachment; filename=\"employees.csv\""))
+                .andExpect(content().string("id,firstName,lastName,email,version\r\n"));
+    }
+
+    //import employees from csv
+    @DisplayName("import employees from csv")
+    @Test
+    public void givenCsvBody_whenImportEmployees_thenReturnTotals() throws Exception {
+        //given
+        when(employeeTransferService.getFormat("csv")).thenReturn(Optional.of(csv));
+        when(employeeTransferService.importEmployees(eq(csv),any(InputStream.class)))
+                .thenReturn(new ImportResult(2,1,1,0,5,400));
+
+        //when
+        ResultActions response = mockMvc.perform(post("/api/employees/import")
+                .contentType("text/csv")
+                .content("firstName,lastName,email\r\nharshal,aher,harshal@abc.com\r\nharshal,aher,harshal@abc.com\r\n"));
+
+        //then
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows",is(2)))
+                .andExpect(jsonPath("$.conflicts",is(1)))
+                .andExpect(jsonPath("$.rowsPerSecond",is(400)));
+    }
+
+    //unknown transfer format
+    @DisplayName("unknown transfer format")
+    @Test
+    public void givenUnknownFormat_whenExportEmployees_thenReturnBadRequest() throws Exception {
+        //given
+        when(employeeTransferService.getFormat("xml")).thenReturn(Optional.empty());
+
+        //when
+        ResultActions response = mockMvc.perform(get("/api/employees/export").param("format","xml"));
+
+        //then
+        response.andExpect(status().isBadRequest());
+    }
+}
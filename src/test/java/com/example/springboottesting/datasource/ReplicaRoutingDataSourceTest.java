@@ -0,0 +1,167 @@
+package com.example.springboottesting.datasource;
+
+import com.example.springboottesting.config.CacheConfig;
+import com.example.springboottesting.config.ReadReplicaConfig;
+import com.example.springboottesting.model.Employee;
+import com.example.springboottesting.repository.EmployeeRepository;
+import com.example.springboottesting.service.EmployeeService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//two separate h2 databases stand in for replicas, the heartbeat is written into them by the test
+@SpringBootTest(properties = {
+        "app.datasource.replicas.enabled=true",
+        "app.datasource.replicas.urls=jdbc:h2:mem:replicatest1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:replicatest2;DB_CLOSE_DELAY=-1",
+        "app.datasource.replicas.max-lag=5s",
+        "app.datasource.replicas.heartbeat-interval=1h"
+})
+@AutoConfigureMockMvc
+public class ReplicaRoutingDataSourceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private ReadReplicaConfig.ReplicaDataSources replicaDataSources;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    private JdbcTemplate replica1;
+
+    private JdbcTemplate replica2;
+
+    @BeforeEach
+    public void setup(){
+        replica1=replicaTemplate("replica-1");
+        replica2=replicaTemplate("replica-2");
+        employeeRepository.deleteAll();
+    }
+
+    //read only work goes to the replica that is in sync
+    @DisplayName("read only work goes to the replica that is in sync")
+    @Test
+    public void givenFreshAndStaleReplica_whenFindById_thenReadFromFreshReplica(){
+        replica1.update("insert into employees (id, first_name, last_name, email, version) values (1, 'replica', 'one', 'one@abc.com', 0)");
+        replica2.update("insert into employees (id, first_name, last_name, email, version) values (1, 'replica', 'two', 'two@abc.com', 0)");
+        replica1.update("insert into replica_heartbeat (id, beat_at) values (1, ?)", System.currentTimeMillis());
+        replica2.update("insert into replica_heartbeat (id, beat_at) values (1, ?)", System.currentTimeMillis()-60_000);
+        replicaLagMonitor.check();
+
+        assertTrue(replicaLagMonitor.isAvailable("replica-1"));
+        assertFalse(replicaLagMonitor.isAvailable("replica-2"));
+        for(int i=0;i<4;i++){
+            assertEquals("one",employeeRepository.findById(1L).orElseThrow().getLastName());
+        }
+    }
+
+    //writes and reads without a usable replica go to the primary
+    @DisplayName("writes and reads without a usable replica go to the primary")
+    @Test
+    public void givenNoHeartbeatOnReplicas_whenSaveAndFind_thenUsePrimary(){
+        replicaLagMonitor.check();
+
+        Employee savedEmployee=employeeRepository.save(Employee.builder().firstName("harshal").lastName("aher").email("harshal@abc.com").build());
+
+        assertEquals("aher",employeeRepository.findById(savedEmployee.getId()).orElseThrow().getLastName());
+        assertEquals(0,replica1.queryForObject("select count(*) from employees",Integer.class));
+    }
+
+    //the request's open session reads from a replica first, the update after it must still go to the primary
+    @DisplayName("a write after a replica read in the same request goes to the primary")
+    @Test
+    public void givenEmployeeOnFreshReplica_whenUpdateEmployee_thenWriteToPrimary() throws Exception {
+        Employee savedEmployee=employeeRepository.save(Employee.builder().firstName("harshal").lastName("aher").email("harshal@abc.com").build());
+        replica1.update("insert into employees (id, first_name, last_name, email, version) values (?, 'harshal', 'aher', 'harshal@abc.com', 0)",
+                savedEmployee.getId());
+        replica1.update("insert into replica_heartbeat (id, beat_at) values (1, ?)", System.currentTimeMillis());
+        replicaLagMonitor.check();
+        Employee updatedEmployee=Employee.builder().firstName("harsh").lastName("patil").email("harsh@abc.com").build();
+
+        mockMvc.perform(put("/api/employees/{id}",savedEmployee.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updatedEmployee)))
+                .andExpect(status().isOk());
+
+        JdbcTemplate primary=new JdbcTemplate(primaryDataSource);
+        assertEquals("patil",primary.queryForObject("select last_name from employees where id = ?",String.class,savedEmployee.getId()));
+        assertEquals("aher",replica1.queryForObject("select last_name from employees where id = ?",String.class,savedEmployee.getId()));
+    }
+
+    //a replica may lag, what goes into the employee cache is read from the primary
+    @DisplayName("cache misses are loaded from the primary, not from a lagging replica")
+    @Test
+    public void givenStaleRowOnFreshReplica_whenGetEmployeeById_thenLoadAndCacheFromPrimary(){
+        Employee savedEmployee=employeeRepository.save(Employee.builder().firstName("harshal").lastName("aher").email("harshal@abc.com").build());
+        replica1.update("insert into employees (id, first_name, last_name, email, version) values (?, 'harshal', 'stale', 'harshal@abc.com', 0)",
+                savedEmployee.getId());
+        replica1.update("insert into replica_heartbeat (id, beat_at) values (1, ?)", System.currentTimeMillis());
+        replicaLagMonitor.check();
+
+        Employee employee=employeeService.getEmployeeById(savedEmployee.getId()).orElseThrow();
+
+        assertEquals("stale",employeeRepository.findById(savedEmployee.getId()).orElseThrow().getLastName());
+        assertEquals("aher",employee.getLastName());
+        assertEquals("aher",cacheManager.getCache(CacheConfig.EMPLOYEES_BY_ID).get(savedEmployee.getId(),Employee.class).getLastName());
+        assertEquals("aher",employeeService.getEmployeesByEmails(List.of("harshal@abc.com")).get(0).getEmployee().getLastName());
+    }
+
+    //without replica urls read only work stays on the primary
+    @DisplayName("without replica urls read only work stays on the primary")
+    @Test
+    public void givenNoReplicas_whenReadOnlyLookup_thenUsePrimary(){
+        ReplicaRoutingDataSource routingDataSource=new ReplicaRoutingDataSource(primaryDataSource,Map.of(),replicaLagMonitor);
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            assertEquals(ReplicaRoutingDataSource.PRIMARY,routingDataSource.determineCurrentLookupKey());
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+    }
+
+    private JdbcTemplate replicaTemplate(String name){
+        DataSource dataSource=replicaDataSources.get().get(name);
+        JdbcTemplate replica=new JdbcTemplate(dataSource);
+        //no real replication between h2 databases, so the replica schema is created here
+        replica.execute("drop all objects");
+        replica.execute("create table employees (id bigint primary key, first_name varchar(255), last_name varchar(255),"
+                +" email varchar(255), version bigint)");
+        replica.execute(ReplicaLagMonitor.CREATE_HEARTBEAT_TABLE);
+        return replica;
+    }
+}
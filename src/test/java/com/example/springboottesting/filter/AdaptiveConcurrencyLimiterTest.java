@@ -0,0 +1,47 @@
+package com.example.springboottesting.filter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long TARGET = 100;
+
+    //test fast requests at the limit raise it
+    @DisplayName("test fast requests at the limit raise it")
+    @Test
+    public void givenFastRequestsAtLimit_whenRelease_thenLimitGrows() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 3, TARGET, 0.5);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire());
+            assertTrue(limiter.tryAcquire());
+            long start = System.nanoTime();
+            limiter.release(start, start + TARGET, true);
+            limiter.release(start, start + TARGET, true);
+        }
+
+        assertEquals(3, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    //test slow requests of one round trip cut the limit once
+    @DisplayName("test slow requests of one round trip cut the limit once")
+    @Test
+    public void givenConcurrentSlowRequests_whenRelease_thenLimitCutOnce() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 8, TARGET, 0.5);
+        long start = System.nanoTime() + 1;
+        for (int i = 0; i < 8; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+
+        for (int i = 0; i < 8; i++) {
+            limiter.release(start, start + TARGET * 10, true);
+        }
+
+        assertEquals(4, limiter.getLimit());
+    }
+}
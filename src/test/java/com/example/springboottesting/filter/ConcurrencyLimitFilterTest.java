@@ -0,0 +1,79 @@
+package com.example.springboottesting.filter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrencyLimitFilterTest {
+
+    //test request within the limit passes through
+    @DisplayName("test request within the limit passes through")
+    @Test
+    public void givenFreePermit_whenFilter_thenInvokeChain() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, 10, List.of("/api/employees/changes"));
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/employees"), response, chain);
+
+        assertNotNull(chain.getRequest());
+        assertEquals(200, response.getStatus());
+    }
+
+    //test request over the limit is rejected with 503
+    @DisplayName("test request over the limit is rejected with 503")
+    @Test
+    public void givenNoFreePermit_whenFilter_thenReturnServiceUnavailable() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, 10, List.of("/api/employees/changes"));
+        MockHttpServletResponse innerResponse = new MockHttpServletResponse();
+        MockFilterChain innerChain = new MockFilterChain();
+
+        //the outer request holds the only permit while the inner one is filtered
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/employees"), new MockHttpServletResponse(),
+                (request, response) -> filter.doFilter(new MockHttpServletRequest("GET", "/api/employees"),
+                        innerResponse, innerChain));
+
+        assertNull(innerChain.getRequest());
+        assertEquals(503, innerResponse.getStatus());
+    }
+
+    //test async request holds its permit until the response completes
+    @DisplayName("test async request holds its permit until the response completes")
+    @Test
+    public void givenAsyncRequest_whenFilterReturns_thenPermitReleasedOnCompletion() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, 10, List.of("/api/employees/changes"));
+        MockHttpServletRequest streamRequest = new MockHttpServletRequest("GET", "/api/employees/stream");
+        streamRequest.setAsyncSupported(true);
+
+        filter.doFilter(streamRequest, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+        MockHttpServletResponse whileStreaming = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/employees"), whileStreaming, new MockFilterChain());
+        streamRequest.getAsyncContext().complete();
+        MockHttpServletResponse afterStreaming = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/employees"), afterStreaming, new MockFilterChain());
+
+        assertEquals(503, whileStreaming.getStatus());
+        assertEquals(200, afterStreaming.getStatus());
+    }
+
+    //test change feed subscribers do not take permits
+    @DisplayName("test change feed subscribers do not take permits")
+    @Test
+    public void givenOpenChangeFeed_whenFilter_thenOtherRequestsStillPass() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, 10, List.of("/api/employees/changes"));
+        MockHttpServletRequest changesRequest = new MockHttpServletRequest("GET", "/api/employees/changes");
+        changesRequest.setAsyncSupported(true);
+
+        filter.doFilter(changesRequest, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+        MockHttpServletResponse whileSubscribed = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/employees"), whileSubscribed, new MockFilterChain());
+
+        assertEquals(200, whileSubscribed.getStatus());
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.springboottesting.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimitFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AdaptiveConcurrencyLimiter limiter;
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    public void setup(){
+        meterRegistry = new SimpleMeterRegistry();
+        limiter = new AdaptiveConcurrencyLimiter(1, 1, 10, TimeUnit.SECONDS.toNanos(1), 0.9);
+        filter = new RateLimitFilter("X-Client-Id", true, new RateLimitFilter.Budget(1, 2),
+                new RateLimitFilter.Budget(1, 1), 100, limiter, meterRegistry);
+    }
+
+    //test an untrusted client header gives no fresh budget, clients are told apart by address
+    @DisplayName("test an untrusted client header gives no fresh budget, clients are told apart by address")
+    @Test
+    public void givenUntrustedClientHeader_whenHeaderChanges_thenSameAddressShareBudget() throws Exception {
+        //given
+        filter = new RateLimitFilter("X-Client-Id", false, new RateLimitFilter.Budget(1, 2),
+                new RateLimitFilter.Budget(1, 1), 100, limiter, meterRegistry);
+        assertEquals(200, perform(request("a", "/api/employees/1")).getStatus());
+        assertEquals(200, perform(request("b", "/api/employees/2")).getStatus());
+
+        //when
+        MockHttpServletResponse rejected = perform(request("c", "/api/employees/3"));
+        MockHttpServletRequest otherAddress = request("c", "/api/employees/3");
+        otherAddress.setRemoteAddr("10.0.0.2");
+        MockHttpServletResponse otherClient = perform(otherAddress);
+
+        //then
+        assertEquals(429, rejected.getStatus());
+        assertEquals(200, otherClient.getStatus());
+    }
+
+    //test client over its budget gets 429, other clients are unaffected
+    @DisplayName("test client over its budget gets 429, other clients are unaffected")
+    @Test
+    public void givenClientOverBudget_whenFilter_thenReturnTooManyRequests() throws Exception {
+        //given
+        assertEquals(200, perform(request("a", "/api/employees/1")).getStatus());
+        assertEquals(200, perform(request("a", "/api/employees/2")).getStatus());
+
+        //when
+        MockHttpServletResponse rejected = perform(request("a", "/api/employees/3"));
+        MockHttpServletResponse otherClient = perform(request("b", "/api/employees/3"));
+
+        //then
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertEquals(200, otherClient.getStatus());
+        assertEquals(1.0, meterRegistry.get("employee.requests.rejected").tag("reason", "rate_limit").counter().count());
+    }
+
+    //test expensive calls have their own budget
+    @DisplayName("test expensive calls have their own budget")
+    @Test
+    public void givenExpensiveBudgetSpent_whenFilterPointRead_thenPass() throws Exception {
+        //given
+        assertEquals(200, perform(request("a", "/api/employees")).getStatus());
+
+        //when
+        MockHttpServletResponse search = perform(request("a", "/api/employees/search"));
+        MockHttpServletRequest page = request("a", "/api/employees");
+        page.setParameter("limit", "20");
+        MockHttpServletResponse pointRead = perform(page);
+
+        //then
+        assertEquals(429, search.getStatus());
+        assertEquals(200, pointRead.getStatus());
+    }
+
+    //test requests over the concurrency limit are shed with 503
+    @DisplayName("test requests over the concurrency limit are shed with 503")
+    @Test
+    public void givenConcurrencyLimitReached_whenFilter_thenReturnServiceUnavailable() throws Exception {
+        MockHttpServletResponse innerResponse = new MockHttpServletResponse();
+        MockFilterChain innerChain = new MockFilterChain();
+
+        //the outer request holds the only slot while the inner one is filtered
+        filter.doFilter(request("a", "/api/employees/1"), new MockHttpServletResponse(),
+                (request, response) -> filter.doFilter(request("b", "/api/employees/1"), innerResponse, innerChain));
+
+        assertNull(innerChain.getRequest());
+        assertEquals(503, innerResponse.getStatus());
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(1.0, meterRegistry.get("employee.requests.rejected").tag("reason", "overload").counter().count());
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String client, String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.addHeader("X-Client-Id", client);
+        return request;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.springboottesting.ingest;
+
+import com.example.springboottesting.dto.BulkItemResult;
+import com.example.springboottesting.dto.BulkItemStatus;
+import com.example.springboottesting.dto.IngestStatus;
+import com.example.springboottesting.dto.IngestTicket;
+import com.example.springboottesting.exception.EmployeeAlreadyExistsException;
+import com.example.springboottesting.model.Employee;
+import com.example.springboottesting.service.EmployeeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeIngestQueueTest {
+
+    @Mock
+    private EmployeeService employeeService;
+
+    private EmployeeIngestQueue ingestQueue;
+
+    private Employee employee;
+
+    private Employee employee1;
+
+    @BeforeEach
+    public void setup(){
+        //writer thread is not started, drain() is called by the tests
+        ingestQueue=new EmployeeIngestQueue(employeeService,new SimpleMeterRegistry(),2,10,50,Duration.ofHours(1));
+        employee=Employee.builder().firstName("harshal").lastName("aher").email("harshal@abc.com").build();
+        employee1=Employee.builder().firstName("ramesh").lastName("patil").email("ramesh@abc.com").build();
+    }
+
+    //queued employees are written as one batch
+    @DisplayName("queued employees are written as one batch")
+    @Test
+    public void givenQueuedEmployees_whenDrain_thenSaveBatchAndCompleteTickets(){
+        IngestTicket ticket=ingestQueue.submit(employee).orElseThrow();
+        IngestTicket ticket1=ingestQueue.submit(employee1).orElseThrow();
+        when(employeeService.saveEmployees(List.of(employee,employee1))).thenReturn(List.of(
+                new BulkItemResult(0,1L,BulkItemStatus.CREATED,null),
+                new BulkItemResult(1,null,BulkItemStatus.CONFLICT,"Employee already exists with given email : ramesh@abc.com")));
+
+        assertEquals(IngestStatus.PENDING,ingestQueue.getTicket(ticket.getTrackingId()).orElseThrow().getStatus());
+        ingestQueue.drain();
+
+        assertEquals(IngestStatus.CREATED,ingestQueue.getTicket(ticket.getTrackingId()).orElseThrow().getStatus());
+        assertEquals(1L,ingestQueue.getTicket(ticket.getTrackingId()).orElseThrow().getId());
+        assertEquals(IngestStatus.CONFLICT,ingestQueue.getTicket(ticket1.getTrackingId()).orElseThrow().getStatus());
+        assertEquals(0,ingestQueue.size());
+        verify(employeeService,times(1)).saveEmployees(anyList());
+    }
+
+    //a full queue rejects new employees
+    @DisplayName("a full queue rejects new employees")
+    @Test
+    public void givenFullQueue_whenSubmit_thenReturnEmpty(){
+        ingestQueue.submit(employee);
+        ingestQueue.submit(employee1);
+
+        Optional<IngestTicket> ticket=ingestQueue.submit(Employee.builder().email("third@abc.com").build());
+
+        assertTrue(ticket.isEmpty());
+        assertEquals(2,ingestQueue.size());
+    }
+
+    //a failed batch falls back to single writes
+    @DisplayName("a failed batch falls back to single writes")
+    @Test
+    public void givenFailingBatch_whenDrain_thenWriteEmployeesOneByOne(){
+        IngestTicket ticket=ingestQueue.submit(employee).orElseThrow();
+        IngestTicket ticket1=ingestQueue.submit(employee1).orElseThrow();
+        when(employeeService.saveEmployees(anyList())).thenThrow(new DataIntegrityViolationException("uk_employees_email"));
+        when(employeeService.saveEmployee(employee)).thenReturn(Employee.builder().id(1L).build());
+        when(employeeService.saveEmployee(employee1)).thenThrow(new EmployeeAlreadyExistsException("Employee already exists with given email : ramesh@abc.com"));
+
+        ingestQueue.drain();
+
+        assertEquals(IngestStatus.CREATED,ingestQueue.getTicket(ticket.getTrackingId()).orElseThrow().getStatus());
+        assertEquals(IngestStatus.CONFLICT,ingestQueue.getTicket(ticket1.getTrackingId()).orElseThrow().getStatus());
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.springboottesting.json;
+
+import com.example.springboottesting.event.EmployeeChangedEvent;
+import com.example.springboottesting.model.Employee;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.lang.reflect.Type;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class EmployeeJsonHttpMessageConverterTest {
+
+    private static final Type EMPLOYEE_LIST = ResolvableType.forClassWithGenerics(List.class, Employee.class).getType();
+
+    private ObjectMapper objectMapper;
+
+    private EmployeeJsonHttpMessageConverter converter;
+
+    @BeforeEach
+    public void setup(){
+        objectMapper=Jackson2ObjectMapperBuilder.json().build();
+        converter=new EmployeeJsonHttpMessageConverter(objectMapper,100);
+    }
+
+    //test json is encoded once per employee version
+    @DisplayName("test json is encoded once per employee version")
+    @Test
+    public void givenSameVersion_whenToJson_thenReturnCachedBytes(){
+        Employee employee=employee(1L,"harshal@abc.com",0L);
+        byte[] json=converter.toJson(employee);
+
+        assertSame(json,converter.toJson(employee(1L,"harshal@abc.com",0L)));
+        byte[] updated=converter.toJson(employee(1L,"aher@abc.com",1L));
+        assertNotSame(json,updated);
+        assertTrue(new String(updated).contains("aher@abc.com"));
+
+        converter.onEmployeeChanged(EmployeeChangedEvent.deleted(1L));
+        assertNotSame(updated,converter.toJson(employee(1L,"aher@abc.com",1L)));
+    }
+
+    //test list of employees is written exactly as jackson writes it
+    @DisplayName("test list of employees is written exactly as jackson writes it")
+    @Test
+    public void givenEmployeeList_whenWrite_thenSameJsonAsJackson() throws Exception {
+        List<Employee> employees=List.of(employee(1L,"harshal@abc.com",0L),employee(2L,"aher@abc.com",3L));
+        converter.toJson(employees.get(0));
+        MockHttpOutputMessage outputMessage=new MockHttpOutputMessage();
+
+        assertTrue(converter.canWrite(EMPLOYEE_LIST,List.class,MediaType.APPLICATION_JSON));
+        converter.write(employees,EMPLOYEE_LIST,MediaType.APPLICATION_JSON,outputMessage);
+
+        assertEquals(objectMapper.writeValueAsString(employees),outputMessage.getBodyAsString());
+    }
+
+    //test other bodies and all reads are left to jackson
+    @DisplayName("test other bodies and all reads are left to jackson")
+    @Test
+    public void givenOtherTypes_whenCanWriteOrRead_thenFalse(){
+        Type strings=ResolvableType.forClassWithGenerics(List.class, String.class).getType();
+
+        assertFalse(converter.canWrite(strings,List.class,MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(Employee.class,Employee.class,MediaType.APPLICATION_XML));
+        assertFalse(converter.canRead(Employee.class,MediaType.APPLICATION_JSON));
+        assertFalse(converter.canRead(EMPLOYEE_LIST,null,MediaType.APPLICATION_JSON));
+    }
+
+    //test a single employee is encoded once for both its length and its body
+    @DisplayName("test a single employee is encoded once for both its length and its body")
+    @Test
+    public void givenUncachedEmployee_whenWrite_thenContentLengthMatchesBody() throws Exception {
+        ObjectMapper countingMapper=spy(objectMapper);
+        ObjectWriter countingWriter=spy(objectMapper.writerFor(Employee.class));
+        doReturn(countingWriter).when(countingMapper).writerFor(Employee.class);
+        EmployeeJsonHttpMessageConverter countingConverter=new EmployeeJsonHttpMessageConverter(countingMapper,100);
+        Employee employee=employee(null,"harshal@abc.com",null);
+        MockHttpOutputMessage outputMessage=new MockHttpOutputMessage();
+
+        countingConverter.write(employee,Employee.class,MediaType.APPLICATION_JSON,outputMessage);
+
+        verify(countingWriter,times(1)).writeValueAsBytes(employee);
+        assertEquals(outputMessage.getBodyAsBytes().length,outputMessage.getHeaders().getContentLength());
+        assertEquals(objectMapper.writeValueAsString(employee),outputMessage.getBodyAsString());
+    }
+
+    //test reading decodes like jackson
+    @DisplayName("test reading decodes like jackson")
+    @Test
+    public void givenEmployeeJson_whenRead_thenReturnEmployee() throws Exception {
+        MockHttpInputMessage inputMessage=new MockHttpInputMessage(
+                "[{\"id\":1,\"firstName\":\"harshal\",\"lastName\":\"aher\",\"email\":\"harshal@abc.com\"}]".getBytes());
+
+        @SuppressWarnings("unchecked")
+        List<Employee> employees=(List<Employee>)converter.read(EMPLOYEE_LIST,null,inputMessage);
+
+        assertEquals(1,employees.size());
+        assertEquals("harshal@abc.com",employees.get(0).getEmail());
+    }
+
+    private static Employee employee(Long id, String email, Long version){
+        return Employee.builder().id(id).firstName("harshal").lastName("aher").email(email).version(version).build();
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.springboottesting.reactive;
+
+import com.example.springboottesting.model.Employee;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(ReactiveEmployeeController.class)
+@ActiveProfiles("reactive")
+public class ReactiveEmployeeControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private ReactiveEmployeeService employeeService;
+
+    @Test
+    public void givenEmployeeObject_whenCreateEmployee_thenReturnSavedEmployeeObject() {
+        //given
+        Employee employee = Employee.builder()
+                .firstName("harshal")
+                .lastName("aher")
+                .email("harshal@abc.com")
+                .build();
+        when(employeeService.saveEmployee(any(Employee.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        //when - then
+        webTestClient.post().uri("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(employee)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.firstName").isEqualTo(employee.getFirstName())
+                .jsonPath("$.email").isEqualTo(employee.getEmail());
+    }
+
+    @Test
+    public void givenEmployeeList_whenGetAllEmployees_thenReturnEmployeeArray() {
+        //given
+        Employee employee1 = Employee.builder()
+                .firstName("harshal")
+                .lastName("aher")
+                .email("harshal@abc.com")
+                .build();
+
+        Employee employee2 = Employee.builder()
+                .firstName("raju")
+                .lastName("rastogi")
+                .email("raju@abc.com")
+                .build();
+        when(employeeService.getAllEmployees()).thenReturn(Flux.just(employee1, employee2));
+
+        //when - then
+        webTestClient.get().uri("/api/employees")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.size()").isEqualTo(2);
+    }
+
+    //get employee by id - invalid id - negative scenario
+    @DisplayName("get employee by id - invalid id")
+    @Test
+    public void givenEmployeeId_whenGetEmployeeById_thenReturnNotFound() {
+        //given
+        when(employeeService.getEmployeeById(anyLong())).thenReturn(Mono.empty());
+
+        //when - then
+        webTestClient.get().uri("/api/employees/{id}", 1L)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    //update employee positive scenario
+    @DisplayName("update employee positive scenario")
+    @Test
+    public void givenUpdatedEmployee_whenUpdateEmployee_thenReturnUpdatedEmployee() {
+        //given
+        Employee savedEmployee = Employee.builder()
+                .id(1L)
+                .firstName("harshal")
+                .lastName("aher")
+                .email("harshal@abc.com")
+                .build();
+
+        Employee updatedEmployee = Employee.builder()
+                .firstName("harshalkumar")
+                .lastName("aher")
+                .email("harshal@aher.com")
+                .build();
+        when(employeeService.getEmployeeById(1L)).thenReturn(Mono.just(savedEmployee));
+        when(employeeService.updateEmployee(any(Employee.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        //when - then
+        webTestClient.put().uri("/api/employees/{id}", 1L)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(updatedEmployee)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.firstName").isEqualTo(updatedEmployee.getFirstName())
+                .jsonPath("$.email").isEqualTo(updatedEmployee.getEmail());
+    }
+
+    //update employee with a stale version
+    @DisplayName("update employee with a stale version")
+    @Test
+    public void givenConcurrentUpdate_whenUpdateEmployee_thenReturnConflict() {
+        //given
+        Employee savedEmployee = Employee.builder()
+                .id(1L)
+                .firstName("harshal")
+                .lastName("aher")
+                .email("harshal@abc.com")
+                .version(0L)
+                .build();
+        when(employeeService.getEmployeeById(1L)).thenReturn(Mono.just(savedEmployee));
+        when(employeeService.updateEmployee(any(Employee.class)))
+                .thenReturn(Mono.error(new OptimisticLockingFailureException("Employee 1 was modified concurrently")));
+
+        //when - then
+        webTestClient.put().uri("/api/employees/{id}", 1L)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(savedEmployee)
+                .exchange()
+                .expectStatus().isEqualTo(409);
+    }
+
+    //delete employee positive scenario
+    @DisplayName("delete employee positive scenario")
+    @Test
+    public void givenEmployeeId_whenDeleteEmployee_thenReturnStatus200() {
+        //given
+        when(employeeService.deleteEmployee(1L)).thenReturn(Mono.empty());
+
+        //when - then
+        webTestClient.delete().uri("/api/employees/{id}", 1L)
+                .exchange()
+                .expectStatus().isOk();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.springboottesting.reactive;
+
+import com.example.springboottesting.model.Employee;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.test.StepVerifier;
+
+@DataR2dbcTest
+@Import(ReactiveEmployeeRepository.class)
+@ActiveProfiles("reactive")
+public class ReactiveEmployeeRepositoryTest {
+
+    @Autowired
+    private ReactiveEmployeeRepository employeeRepository;
+
+    private Employee employee;
+
+    @BeforeEach
+    public void setup() {
+        employeeRepository.deleteAll().block();
+        employee = Employee.builder()
+                .firstName("harshal").lastName("aher").email("harshal@abc.com").build();
+    }
+
+    //test for save and find by email operation
+    @DisplayName("test for save and find by email operation")
+    @Test
+    public void givenSavedEmployee_whenFindByEmail_thenReturnEmployee() {
+        StepVerifier.create(employeeRepository.save(employee)
+                        .then(employeeRepository.findByEmail("harshal@abc.com")))
+                .expectNextMatches(employeeFromDB -> employeeFromDB.getId() != null
+                        && employeeFromDB.getFirstName().equals("harshal"))
+                .verifyComplete();
+    }
+
+    //test for keyset page after a given id
+    @DisplayName("test for keyset page after a given id")
+    @Test
+    public void givenEmployeesList_whenFindPageAfter_thenReturnPageOrderedById() {
+        Employee employee2 = Employee.builder()
+                .firstName("tim").lastName("shallots").email("tim@abc.com").build();
+        Employee employee3 = Employee.builder()
+                .firstName("robbie").lastName("onions").email("robbie@abc.com").build();
+
+        StepVerifier.create(employeeRepository.save(employee)
+                        .then(employeeRepository.save(employee2))
+                        .then(employeeRepository.save(employee3))
+                        .thenMany(employeeRepository.findPageAfter(0L, 2)))
+                .expectNextMatches(e -> e.getEmail().equals("harshal@abc.com"))
+                .expectNextMatches(e -> e.getEmail().equals("tim@abc.com"))
+                .verifyComplete();
+    }
+
+    //test update with the current version bumps it
+    @DisplayName("test update with the current version bumps it")
+    @Test
+    public void givenCurrentVersion_whenSave_thenUpdateAndBumpVersion() {
+        Employee savedEmployee = employeeRepository.save(employee).block();
+        savedEmployee.setFirstName("harshalkumar");
+
+        StepVerifier.create(employeeRepository.save(savedEmployee)
+                        .then(employeeRepository.findById(savedEmployee.getId())))
+                .expectNextMatches(employeeFromDB -> employeeFromDB.getVersion() == 1L
+                        && employeeFromDB.getFirstName().equals("harshalkumar"))
+                .verifyComplete();
+    }
+
+    //test update without a version still bumps it
+    @DisplayName("test update without a version still bumps it")
+    @Test
+    public void givenNoVersion_whenSave_thenUpdateAndBumpVersion() {
+        Employee savedEmployee = employeeRepository.save(employee).block();
+        savedEmployee.setFirstName("harshalkumar");
+        employeeRepository.save(savedEmployee).block();
+        Employee withoutVersion = Employee.builder().id(savedEmployee.getId()).firstName("tony").lastName("aher")
+                .email("harshal@abc.com").build();
+
+        StepVerifier.create(employeeRepository.save(withoutVersion))
+                .expectNextMatches(updated -> updated.getVersion() == 2L)
+                .verifyComplete();
+        StepVerifier.create(employeeRepository.findById(savedEmployee.getId()))
+                .expectNextMatches(employeeFromDB -> employeeFromDB.getVersion() == 2L
+                        && employeeFromDB.getFirstName().equals("tony"))
+                .verifyComplete();
+    }
+
+    //test update with a stale version is rejected
+    @DisplayName("test update with a stale version is rejected")
+    @Test
+    public void givenStaleVersion_whenSave_thenOptimisticLockingFailure() {
+        Employee savedEmployee = employeeRepository.save(employee).block();
+        Employee concurrentEdit = Employee.builder().id(savedEmployee.getId()).firstName("tony").lastName("aher")
+                .email("harshal@abc.com").version(savedEmployee.getVersion()).build();
+        employeeRepository.save(concurrentEdit).block();
+        savedEmployee.setFirstName("harshalkumar");
+
+        StepVerifier.create(employeeRepository.save(savedEmployee))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
+        StepVerifier.create(employeeRepository.findById(savedEmployee.getId()))
+                .expectNextMatches(employeeFromDB -> employeeFromDB.getFirstName().equals("tony"))
+                .verifyComplete();
+    }
+
+    //test update of a missing employee completes empty
+    @DisplayName("test update of a missing employee completes empty")
+    @Test
+    public void givenMissingEmployee_whenSave_thenCompleteEmpty() {
+        Employee missing = Employee.builder().id(999L).firstName("tony").lastName("aher")
+                .email("tony@abc.com").version(0L).build();
+
+        StepVerifier.create(employeeRepository.save(missing))
+                .verifyComplete();
+    }
+}
@@ -1,15 +1,23 @@
 package com.example.springboottesting.repository;
 
+import com.example.springboottesting.dto.EmployeeSetSignature;
+import com.example.springboottesting.dto.EmployeeSummary;
 import com.example.springboottesting.model.Employee;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.PageRequest;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -191,6 +199,162 @@ public class EmployeeRepositoryTest {
         assertEquals(employee.getEmail(), employeeFromDB.getEmail());
     }
 
+    //test for keyset page after a given id
+    @DisplayName("test for keyset page after a given id")
+    @Test
+    public void givenEmployeesList_whenFindPageAfter_thenReturnNextPageOrderedById() {
+        Employee employee2 = Employee.builder()
+                .firstName("tim").lastName("shallots").email("tim@abc.com").build();
+        Employee employee3 = Employee.builder()
+                .firstName("robbie").lastName("onions").email("robbie@abc.com").build();
+        employeeRepository.save(employee);
+        employeeRepository.save(employee2);
+        employeeRepository.save(employee3);
 
-}
+        List<Employee> firstPage = employeeRepository.findPageAfter(0L, PageRequest.of(0, 2));
+        List<Employee> secondPage = employeeRepository.findPageAfter(firstPage.get(1).getId(), PageRequest.of(0, 2));
+
+        assertIterableEquals(List.of(employee, employee2), firstPage);
+        assertIterableEquals(List.of(employee3), secondPage);
+    }
+
+    //test for streaming all employees
+    @DisplayName("test for streaming all employees")
+    @Test
+    public void givenEmployeesList_whenStreamAll_thenReturnEveryEmployeeOrderedById() {
+        Employee employee2 = Employee.builder()
+                .firstName("tim").lastName("shallots").email("tim@abc.com").build();
+        employeeRepository.save(employee);
+        employeeRepository.save(employee2);
+
+        List<String> emails;
+        try (Stream<Employee> employees = employeeRepository.streamAll()) {
+            emails = employees.map(Employee::getEmail).collect(Collectors.toList());
+        }
+
+        assertEquals(List.of("harshal@abc.com", "tim@abc.com"), emails);
+    }
+
+    //test for set based lookup of existing emails
+    @DisplayName("test for set based lookup of existing emails")
+    @Test
+    public void givenEmails_whenFindByEmailIn_thenReturnOnlyExistingEmployees() {
+        Employee employee2 = Employee.builder()
+                .firstName("tim").lastName("shallots").email("tim@abc.com").build();
+        employeeRepository.save(employee);
+        employeeRepository.save(employee2);
+
+        List<Employee> employeesFromDB = employeeRepository.findByEmailIn(List.of("harshal@abc.com", "nobody@abc.com"));
+
+        assertEquals(1, employeesFromDB.size());
+        assertEquals(employee, employeesFromDB.get(0));
+    }
+
+    //test for unique constraint on email
+    @DisplayName("test for unique constraint on email")
+    @Test
+    public void givenExistingEmail_whenSaveAndFlush_thenThrowDataIntegrityViolation() {
+        employeeRepository.saveAndFlush(employee);
+        Employee duplicate = Employee.builder()
+                .firstName("tim").lastName("shallots").email(employee.getEmail()).build();
+
+        DataIntegrityViolationException exception = assertThrows(DataIntegrityViolationException.class,
+                () -> employeeRepository.saveAndFlush(duplicate));
+        assertTrue(exception.getMostSpecificCause().getMessage().toLowerCase().contains(Employee.EMAIL_UNIQUE_CONSTRAINT));
+    }
+
+    //test for keyset page of summaries
+    @DisplayName("test for keyset page of summaries")
+    @Test
+    public void givenEmployeesList_whenFindSummariesAfter_thenReturnIdAndNames() {
+        Employee employee2 = Employee.builder()
+                .firstName("tim").lastName("shallots").email("tim@abc.com").build();
+        employeeRepository.save(employee);
+        employeeRepository.save(employee2);
+
+        List<EmployeeSummary> summaries = employeeRepository.findSummariesAfter(employee.getId(), PageRequest.of(0, 10));
+
+        assertEquals(1, summaries.size());
+        assertEquals(employee2.getId(), summaries.get(0).getId());
+        assertEquals("tim", summaries.get(0).getFirstName());
+        assertEquals("shallots", summaries.get(0).getLastName());
+    }
+
+    //test for keyset page of selected fields
+    @DisplayName("test for keyset page of selected fields")
+    @Test
+    public void givenEmployeesList_whenFindFieldsAfter_thenReturnOnlySelectedFields() {
+        employeeRepository.save(employee);
 
+        List<Map<String, Object>> rows = employeeRepository.findFieldsAfter(List.of("id", "email"), 0L, 10);
+
+        assertEquals(1, rows.size());
+        assertEquals(List.of("id", "email"), List.copyOf(rows.get(0).keySet()));
+        assertEquals(employee.getEmail(), rows.get(0).get("email"));
+    }
+
+    //test for keyset page of unknown field
+    @DisplayName("test for keyset page of unknown field")
+    @Test
+    public void givenUnknownField_whenFindFieldsAfter_thenThrowException() {
+        assertThrows(InvalidDataAccessApiUsageException.class,
+                () -> employeeRepository.findFieldsAfter(List.of("salary"), 0L, 10));
+    }
+
+    //test for single statement partial update
+    @DisplayName("test for single statement partial update")
+    @Test
+    public void givenEmployeeObject_whenPatchEmployee_thenUpdateOnlyGivenFieldsAndVersion() {
+        employeeRepository.saveAndFlush(employee);
+        Long version = employee.getVersion();
+
+        int updatedRows = employeeRepository.patchEmployee(employee.getId(), null, "kumar", null, version);
+        Employee employeeFromDB = employeeRepository.findById(employee.getId()).orElse(null);
+
+        assertEquals(1, updatedRows);
+        assertNotNull(employeeFromDB);
+        assertEquals("harshal", employeeFromDB.getFirstName());
+        assertEquals("kumar", employeeFromDB.getLastName());
+        assertEquals(version + 1, employeeFromDB.getVersion());
+    }
+
+    //test for partial update with stale version or missing id
+    @DisplayName("test for partial update with stale version or missing id")
+    @Test
+    public void givenStaleVersionOrMissingId_whenPatchEmployee_thenUpdateNoRows() {
+        employeeRepository.saveAndFlush(employee);
+
+        assertEquals(0, employeeRepository.patchEmployee(employee.getId(), "tim", null, null, employee.getVersion() + 1));
+        assertEquals(0, employeeRepository.patchEmployee(employee.getId() + 1000, "tim", null, null, null));
+    }
+
+    //test for version lookup by id
+    @DisplayName("test for version lookup by id")
+    @Test
+    public void givenEmployeeId_whenFindVersionById_thenReturnVersionOnly() {
+        employeeRepository.saveAndFlush(employee);
+
+        assertEquals(employee.getVersion(), employeeRepository.findVersionById(employee.getId()).orElse(null));
+        assertTrue(employeeRepository.findVersionById(employee.getId() + 1000).isEmpty());
+    }
+
+    //test for page signature changes on update
+    @DisplayName("test for page signature changes on update")
+    @Test
+    public void givenEmployeesList_whenUpdateOneEmployee_thenPageSignatureChanges() {
+        Employee employee2 = Employee.builder()
+                .firstName("tim").lastName("shallots").email("tim@abc.com").build();
+        employeeRepository.saveAndFlush(employee);
+        employeeRepository.saveAndFlush(employee2);
+
+        EmployeeSetSignature before = employeeRepository.findPageSignature(0L, 10);
+        employee2.setLastName("onions");
+        employeeRepository.saveAndFlush(employee2);
+        EmployeeSetSignature after = employeeRepository.findPageSignature(0L, 10);
+
+        assertEquals(2, before.getRowCount());
+        assertEquals(employee.getId() + employee2.getId(), before.getIdSum());
+        assertEquals(before.getVersionSum() + 1, after.getVersionSum());
+        assertEquals(after.getVersionSum(), employeeRepository.findTableSignature().getVersionSum());
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.springboottesting.search;
+
+import com.example.springboottesting.event.EmployeeChangedEvent;
+import com.example.springboottesting.model.Employee;
+import com.example.springboottesting.repository.EmployeeRepository;
+import com.example.springboottesting.sharding.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeSearchIndexTest {
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    @Mock
+    private ObjectProvider<ShardRouter> shardRouter;
+
+    @InjectMocks
+    private EmployeeSearchIndex searchIndex;
+
+    private Employee employee;
+
+    private Employee employee1;
+
+    @BeforeEach
+    public void setup(){
+        employee=Employee.builder()
+                .id(1L)
+                .firstName("harshal")
+                .lastName("aher")
+                .email("harshal@abc.com")
+                .version(0L)
+                .build();
+        employee1=Employee.builder()
+                .id(2L)
+                .firstName("harsh")
+                .lastName("patil")
+                .email("patil@xyz.com")
+                .version(0L)
+                .build();
+        when(employeeRepository.findPageAfter(eq(0L),any(PageRequest.class))).thenReturn(List.of(employee,employee1));
+        searchIndex.build();
+    }
+
+    //exact matches rank before prefix matches
+    @DisplayName("exact matches rank before prefix matches")
+    @Test
+    public void givenPrefix_whenSearch_thenReturnExactMatchFirst(){
+        List<Employee> employees=searchIndex.search("harsh",10);
+
+        assertEquals(2,employees.size());
+        assertEquals(2L,employees.get(0).getId());
+        assertEquals(1L,employees.get(1).getId());
+    }
+
+    //one typo is tolerated
+    @DisplayName("one typo is tolerated")
+    @Test
+    public void givenMisspelledName_whenSearch_thenReturnEmployee(){
+        assertEquals(1L,searchIndex.search("hrashal",10).get(0).getId());
+        assertEquals(1L,searchIndex.search("aher harshl",10).get(0).getId());
+        assertTrue(searchIndex.search("xavier",10).isEmpty());
+    }
+
+    //every token has to match
+    @DisplayName("every token has to match")
+    @Test
+    public void givenTwoTokens_whenSearch_thenReturnOnlyEmployeesMatchingBoth(){
+        List<Employee> employees=searchIndex.search("harsh patil",10);
+
+        assertEquals(1,employees.size());
+        assertEquals(2L,employees.get(0).getId());
+    }
+
+    //index follows saves, patches and deletes
+    @DisplayName("index follows saves, patches and deletes")
+    @Test
+    public void givenChangeEvents_whenSearch_thenReturnCurrentState(){
+        searchIndex.onEmployeeChanged(EmployeeChangedEvent.patched(1L,Employee.builder().lastName("kulkarni").build()));
+        assertTrue(searchIndex.search("aher",10).isEmpty());
+        assertEquals("kulkarni",searchIndex.search("kulk",10).get(0).getLastName());
+        assertEquals(1L,searchIndex.search("kulk",10).get(0).getVersion());
+
+        searchIndex.onEmployeeChanged(EmployeeChangedEvent.saved(Employee.builder().id(3L).firstName("ramesh")
+                .lastName("joshi").email("ramesh@abc.com").build()));
+        assertEquals(3L,searchIndex.search("ramesh",10).get(0).getId());
+
+        searchIndex.onEmployeeChanged(EmployeeChangedEvent.deleted(1L));
+        assertTrue(searchIndex.search("kulkarni",10).isEmpty());
+        assertEquals(2,searchIndex.size());
+    }
+
+    //results are limited
+    @DisplayName("results are limited")
+    @Test
+    public void givenLimit_whenSearch_thenReturnAtMostLimitResults(){
+        assertEquals(1,searchIndex.search("com",1).size());
+    }
+
+    //an index that was not loaded at startup loads on the first search
+    @DisplayName("an index that was not loaded at startup loads on the first search")
+    @Test
+    public void givenIndexNotBuilt_whenSearch_thenLoadEmployeesFirst(){
+        EmployeeSearchIndex lazyIndex=new EmployeeSearchIndex(employeeRepository,shardRouter);
+
+        assertEquals(1L,lazyIndex.search("aher",10).get(0).getId());
+        assertEquals(2,lazyIndex.size());
+    }
+
+    //a failed load is retried by the next search
+    @DisplayName("a failed load is retried by the next search")
+    @Test
+    public void givenLoadFails_whenSearchAgain_thenLoadEmployees(){
+        EmployeeSearchIndex lazyIndex=new EmployeeSearchIndex(employeeRepository,shardRouter);
+        when(employeeRepository.findPageAfter(eq(0L),any(PageRequest.class)))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(List.of(employee,employee1));
+
+        assertThrows(QueryTimeoutException.class,()->lazyIndex.search("aher",10));
+        assertEquals(1L,lazyIndex.search("aher",10).get(0).getId());
+        assertEquals(2,lazyIndex.size());
+    }
+
+    //rows read before a delete or an update committed do not overwrite the event
+    @DisplayName("rows read before a delete or an update committed do not overwrite the event")
+    @Test
+    public void givenChangesDuringBuild_whenStalePageApplied_thenKeepEventState(){
+        Employee renamed=Employee.builder()
+                .id(2L)
+                .firstName("harsh")
+                .lastName("deshmukh")
+                .email("deshmukh@xyz.com")
+                .version(1L)
+                .build();
+        //the page is read, then both writes commit before it is applied
+        when(employeeRepository.findPageAfter(eq(0L),any(PageRequest.class))).thenAnswer(invocation -> {
+            List<Employee> page=List.of(copy(employee),copy(employee1));
+            searchIndex.onEmployeeChanged(EmployeeChangedEvent.deleted(1L));
+            searchIndex.onEmployeeChanged(EmployeeChangedEvent.saved(renamed));
+            return page;
+        });
+
+        searchIndex.build();
+
+        assertTrue(searchIndex.search("harshal",10).isEmpty());
+        assertTrue(searchIndex.search("patil",10).isEmpty());
+        assertEquals(2L,searchIndex.search("deshmukh",10).get(0).getId());
+        assertEquals(1,searchIndex.size());
+    }
+
+    //a patch of a row that is not loaded yet makes the build read that row again
+    @DisplayName("rows patched before they were loaded are read again after the build")
+    @Test
+    public void givenPatchBeforeRowLoaded_whenBuild_thenReloadPatchedRow(){
+        EmployeeSearchIndex index=new EmployeeSearchIndex(employeeRepository,shardRouter);
+        Employee renamed=employee1.toBuilder().lastName("deshmukh").version(1L).build();
+        //the page is read, then the patch commits before the page is applied
+        when(employeeRepository.findPageAfter(eq(0L),any(PageRequest.class))).thenAnswer(invocation -> {
+            List<Employee> page=List.of(copy(employee),copy(employee1));
+            index.onEmployeeChanged(EmployeeChangedEvent.patched(2L,Employee.builder().lastName("deshmukh").build()));
+            return page;
+        });
+        when(employeeRepository.findAllById(Set.of(2L))).thenReturn(List.of(renamed));
+
+        index.build();
+
+        List<Employee> employees=index.search("deshmukh",10);
+        assertEquals(1,employees.size());
+        assertEquals(2L,employees.get(0).getId());
+        assertEquals(2,index.size());
+    }
+
+    private static Employee copy(Employee employee){
+        return employee.toBuilder().build();
+    }
+}
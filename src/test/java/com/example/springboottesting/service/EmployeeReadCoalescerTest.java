@@ -0,0 +1,135 @@
+package com.example.springboottesting.service;
+
+import com.example.springboottesting.event.EmployeeChangedEvent;
+import com.example.springboottesting.model.Employee;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmployeeReadCoalescerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private EmployeeReadCoalescer readCoalescer;
+
+    private ExecutorService executor;
+
+    private Employee employee;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        readCoalescer = new EmployeeReadCoalescer(meterRegistry);
+        executor = Executors.newFixedThreadPool(2);
+        employee = Employee.builder()
+                .id(1L)
+                .firstName("harshal")
+                .lastName("aher")
+                .email("harshal@abc.com")
+                .build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    //test concurrent reads of the same id share one query, the joining caller gets a copy
+    @DisplayName("test concurrent reads of the same id share one query, the joining caller gets a copy")
+    @Test
+    public void givenRunningRead_whenSameIdRequested_thenQueryRunsOnce() throws Exception {
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Optional<Employee>> first = executor.submit(() -> readCoalescer.getById(1L, () -> {
+            queries.incrementAndGet();
+            await(release);
+            return Optional.of(employee);
+        }));
+        awaitCount("employee.reads.executed", 1);
+        Future<Optional<Employee>> second = executor.submit(() -> readCoalescer.getById(1L, () -> {
+            queries.incrementAndGet();
+            return Optional.of(employee);
+        }));
+        awaitCount("employee.reads.coalesced", 1);
+        release.countDown();
+
+        Employee joined = second.get(5, TimeUnit.SECONDS).orElseThrow();
+        assertSame(employee, first.get(5, TimeUnit.SECONDS).orElseThrow());
+        assertNotSame(employee, joined);
+        assertEquals(employee.getId(), joined.getId());
+        assertEquals(employee.getEmail(), joined.getEmail());
+        assertEquals(1, queries.get());
+    }
+
+    //test callers waiting for a failed query get its exception
+    @DisplayName("test callers waiting for a failed query get its exception")
+    @Test
+    public void givenRunningReadFails_whenWaiting_thenSameExceptionThrown() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        QueryTimeoutException failure = new QueryTimeoutException("timeout");
+
+        Future<Optional<Employee>> first = executor.submit(() -> readCoalescer.getByEmail("harshal@abc.com", () -> {
+            await(release);
+            throw failure;
+        }));
+        awaitCount("employee.reads.executed", 1);
+        Future<Optional<Employee>> second = executor.submit(() -> readCoalescer.getByEmail("harshal@abc.com", Optional::empty));
+        awaitCount("employee.reads.coalesced", 1);
+        release.countDown();
+
+        assertSame(failure, assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS)).getCause());
+        assertSame(failure, assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS)).getCause());
+    }
+
+    //test reads after a change do not join a query started before it
+    @DisplayName("test reads after a change do not join a query started before it")
+    @Test
+    public void givenRunningRead_whenEmployeeChanged_thenNextReadRunsOwnQuery() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Optional<Employee>> stale = executor.submit(() -> readCoalescer.getById(1L, () -> {
+            await(release);
+            return Optional.of(employee);
+        }));
+        awaitCount("employee.reads.executed", 1);
+        readCoalescer.onEmployeeChanged(EmployeeChangedEvent.deleted(1L));
+        Optional<Employee> fresh = readCoalescer.getById(1L, Optional::empty);
+        release.countDown();
+
+        assertTrue(fresh.isEmpty());
+        assertTrue(stale.get(5, TimeUnit.SECONDS).isPresent());
+        assertEquals(0, meterRegistry.counter("employee.reads.coalesced", "operation", "by_id").count());
+    }
+
+    private void awaitCount(String counter, double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.find(counter).counters().stream().mapToDouble(c -> c.count()).sum() < expected) {
+            assertTrue(System.nanoTime() < deadline, "timed out waiting for " + counter);
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
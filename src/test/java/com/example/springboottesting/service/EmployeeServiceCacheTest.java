@@ -0,0 +1,200 @@
+package com.example.springboottesting.service;
+
+import com.example.springboottesting.config.CacheConfig;
+import com.example.springboottesting.dto.BulkItemStatus;
+import com.example.springboottesting.dto.EmployeeLookupResult;
+import com.example.springboottesting.event.EmployeeChangedEvent;
+import com.example.springboottesting.model.Employee;
+import com.example.springboottesting.repository.EmployeeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+public class EmployeeServiceCacheTest {
+
+    @MockBean
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EmployeeCacheInvalidator cacheInvalidator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Employee employee;
+
+    @BeforeEach
+    public void setup(){
+        cacheManager.getCache(CacheConfig.EMPLOYEES_BY_ID).clear();
+        cacheManager.getCache(CacheConfig.EMPLOYEES_BY_EMAIL).clear();
+        transactionTemplate=new TransactionTemplate(transactionManager);
+        employee=Employee.builder()
+                .id(1L)
+                .firstName("harshal")
+                .lastName("aher")
+                .email("harshal@abc.com")
+                .build();
+    }
+
+    //test repeated get employee by id is served from cache
+    @DisplayName("test repeated get employee by id is served from cache")
+    @Test
+    public void givenCachedEmployee_whenGetEmployeeByIdTwice_thenRepositoryIsHitOnce(){
+        when(employeeRepository.findById(1L)).thenReturn(Optional.of(employee));
+
+        employeeService.getEmployeeById(1L);
+        Employee employeeFromCache=employeeService.getEmployeeById(1L).orElse(null);
+
+        assertNotNull(employeeFromCache);
+        verify(employeeRepository,times(1)).findById(1L);
+    }
+
+    //test repeated get employee by email is served from cache
+    @DisplayName("test repeated get employee by email is served from cache")
+    @Test
+    public void givenCachedEmployee_whenGetEmployeeByEmailTwice_thenRepositoryIsHitOnce(){
+        when(employeeRepository.findByEmail("harshal@abc.com")).thenReturn(Optional.of(employee));
+
+        employeeService.getEmployeeByEmail("harshal@abc.com");
+        employeeService.getEmployeeByEmail("harshal@abc.com");
+
+        verify(employeeRepository,times(1)).findByEmail("harshal@abc.com");
+    }
+
+    //test changes to a cached employee are not seen by other callers
+    @DisplayName("test changes to a cached employee are not seen by other callers")
+    @Test
+    public void givenCachedEmployee_whenCallerChangesIt_thenNextReadGetsUnchangedCopy(){
+        when(employeeRepository.findById(1L)).thenReturn(Optional.of(employee));
+        employeeService.getEmployeeById(1L);
+
+        Employee firstRead=employeeService.getEmployeeById(1L).orElseThrow();
+        firstRead.setEmail("rejected@abc.com");
+        Employee secondRead=employeeService.getEmployeeById(1L).orElseThrow();
+
+        assertNotSame(firstRead,secondRead);
+        assertEquals("harshal@abc.com",secondRead.getEmail());
+        verify(employeeRepository,times(1)).findById(1L);
+    }
+
+    //test missing employee is not cached
+    @DisplayName("test missing employee is not cached")
+    @Test
+    public void givenMissingEmployee_whenGetEmployeeByIdTwice_thenRepositoryIsHitTwice(){
+        when(employeeRepository.findById(2L)).thenReturn(Optional.empty());
+
+        employeeService.getEmployeeById(2L);
+        employeeService.getEmployeeById(2L);
+
+        verify(employeeRepository,times(2)).findById(2L);
+    }
+
+    //test update employee evicts cached entries
+    @DisplayName("test update employee evicts cached entries")
+    @Test
+    public void givenCachedEmployee_whenUpdateEmployee_thenNextReadHitsRepository(){
+        when(employeeRepository.findById(1L)).thenReturn(Optional.of(employee));
+        when(employeeRepository.findByEmail("harshal@abc.com")).thenReturn(Optional.of(employee));
+        when(employeeRepository.saveAndFlush(employee)).thenReturn(employee);
+        employeeService.getEmployeeById(1L);
+        employeeService.getEmployeeByEmail("harshal@abc.com");
+
+        employeeService.updateEmployee(employee);
+        employeeService.getEmployeeById(1L);
+        employeeService.getEmployeeByEmail("harshal@abc.com");
+
+        verify(employeeRepository,times(2)).findById(1L);
+        verify(employeeRepository,times(2)).findByEmail("harshal@abc.com");
+    }
+
+    //test cached entries stay until the update commits
+    @DisplayName("test cached entries stay until the update commits")
+    @Test
+    public void givenCachedEmployee_whenUpdateInTransaction_thenEvictedOnlyAfterCommit(){
+        when(employeeRepository.findById(1L)).thenReturn(Optional.of(employee));
+        when(employeeRepository.saveAndFlush(employee)).thenReturn(employee);
+        employeeService.getEmployeeById(1L);
+
+        transactionTemplate.executeWithoutResult(status->{
+            employeeService.updateEmployee(employee);
+            assertNotNull(cacheManager.getCache(CacheConfig.EMPLOYEES_BY_ID).get(1L));
+        });
+
+        assertNull(cacheManager.getCache(CacheConfig.EMPLOYEES_BY_ID).get(1L));
+    }
+
+    //test a load that started before a committed write is not cached
+    @DisplayName("test a load that started before a committed write is not cached")
+    @Test
+    public void givenWriteCommittedDuringLoad_whenGetEmployeeById_thenResultNotCached(){
+        when(employeeRepository.findById(1L)).thenAnswer(invocation->{
+            //the row was read, then an update commits before the result is cached
+            cacheInvalidator.onEmployeeChanged(EmployeeChangedEvent.saved(employee));
+            return Optional.of(employee);
+        }).thenReturn(Optional.of(employee));
+
+        employeeService.getEmployeeById(1L);
+        assertNull(cacheManager.getCache(CacheConfig.EMPLOYEES_BY_ID).get(1L));
+        employeeService.getEmployeeById(1L);
+
+        verify(employeeRepository,times(2)).findById(1L);
+    }
+
+    //test delete employee evicts cached entry
+    @DisplayName("test delete employee evicts cached entry")
+    @Test
+    public void givenCachedEmployee_whenDeleteEmployee_thenNextReadHitsRepository(){
+        when(employeeRepository.findById(1L)).thenReturn(Optional.of(employee));
+        employeeService.getEmployeeById(1L);
+
+        employeeService.deleteEmployee(1L);
+        employeeService.getEmployeeById(1L);
+
+        verify(employeeRepository,times(2)).findById(1L);
+    }
+
+    //test lookup by ids only queries uncached employees and caches the loaded ones
+    @DisplayName("test lookup by ids only queries uncached employees and caches the loaded ones")
+    @Test
+    public void givenOneCachedEmployee_whenGetEmployeesByIds_thenQueryOnlyMissingAndCacheThem(){
+        Employee other=Employee.builder()
+                .id(2L)
+                .firstName("tony")
+                .lastName("robbins")
+                .email("tony@abc.com")
+                .build();
+        when(employeeRepository.findById(1L)).thenReturn(Optional.of(employee));
+        when(employeeRepository.findAllById(List.of(2L))).thenReturn(List.of(other));
+        employeeService.getEmployeeById(1L);
+
+        List<EmployeeLookupResult> results=employeeService.getEmployeesByIds(List.of(1L,2L));
+        Employee otherFromCache=employeeService.getEmployeeById(2L).orElse(null);
+
+        assertEquals(BulkItemStatus.FOUND,results.get(0).getStatus());
+        assertEquals(BulkItemStatus.FOUND,results.get(1).getStatus());
+        assertEquals(other.getEmail(),otherFromCache.getEmail());
+        verify(employeeRepository,times(1)).findAllById(List.of(2L));
+        verify(employeeRepository,never()).findById(2L);
+    }
+}
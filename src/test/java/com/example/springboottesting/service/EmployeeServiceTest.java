@@ -1,7 +1,16 @@
 package com.example.springboottesting.service;
 
+import com.example.springboottesting.dto.BulkItemResult;
+import com.example.springboottesting.dto.BulkItemStatus;
+import com.example.springboottesting.dto.EmployeeLookupResult;
+import com.example.springboottesting.exception.EmployeeAlreadyExistsException;
+import com.example.springboottesting.exception.ResourceNotFoundException;
+import com.example.springboottesting.event.EmployeeChangedEvent;
 import com.example.springboottesting.model.Employee;
 import com.example.springboottesting.repository.EmployeeRepository;
+import com.example.springboottesting.search.EmployeeSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -9,10 +18,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -24,6 +42,24 @@ public class EmployeeServiceTest {
     @Mock
     private EmployeeRepository employeeRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EmployeeSearchIndex searchIndex;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private EmployeeCacheInvalidator cacheInvalidator;
+
+    @Spy
+    private EmployeeReadCoalescer readCoalescer=new EmployeeReadCoalescer(new SimpleMeterRegistry());
+
     @InjectMocks
     private EmployeeServiceImpl employeeService;
 
@@ -45,8 +81,7 @@ public class EmployeeServiceTest {
     @DisplayName("test for save employee method")
     @Test
     public void givenEmployeeObject_whenSaveEmployee_thenReturnSavedEmployeeObject(){
-        when(employeeRepository.findByEmail(employee.getEmail())).thenReturn(Optional.empty());
-        when(employeeRepository.save(employee)).thenReturn(employee);
+        when(employeeRepository.saveAndFlush(employee)).thenReturn(employee);
 
         Employee savedEmployee=employeeService.saveEmployee(employee);
 
@@ -58,10 +93,11 @@ public class EmployeeServiceTest {
     @DisplayName("test save employee method for failure")
     @Test
     public void givenAlreadyPresentEmployeeObject_whenSaveEmployee_thenThrowException(){
-        when(employeeRepository.findByEmail(employee.getEmail())).thenReturn(Optional.of(employee));
+        when(employeeRepository.saveAndFlush(employee)).thenThrow(new DataIntegrityViolationException("could not execute statement",
+                new RuntimeException("Unique index or primary key violation: \"PUBLIC.UK_EMPLOYEES_EMAIL_INDEX_4 ON PUBLIC.EMPLOYEES(EMAIL)\"")));
 
-        assertThrows(Exception.class,()->employeeService.saveEmployee(employee));
-        verify(employeeRepository,never()).save(any(Employee.class));
+        assertThrows(EmployeeAlreadyExistsException.class,()->employeeService.saveEmployee(employee));
+        verify(employeeRepository,never()).findByEmail(anyString());
     }
 
     //test get all employees method
@@ -108,7 +144,7 @@ public class EmployeeServiceTest {
     @DisplayName("test update employee method")
     @Test
     public void givenEmployeeObject_whenUpdateEmployee_thenReturnUpdatedEmployeeObject(){
-        when(employeeRepository.save(employee)).thenReturn(employee);
+        when(employeeRepository.saveAndFlush(employee)).thenReturn(employee);
 
         employee.setLastName("kumar");
         employee.setEmail("harshal@kumar.com");
@@ -130,4 +166,228 @@ public class EmployeeServiceTest {
 
        verify(employeeRepository,times(1)).deleteById(employeeId);
     }
+
+    //test delete employee method publishes change event
+    @DisplayName("test delete employee method publishes change event")
+    @Test
+    public void givenEmployeeId_whenDeleteEmployee_thenPublishDeletedEvent(){
+        employeeService.deleteEmployee(1L);
+
+        ArgumentCaptor<EmployeeChangedEvent> event=ArgumentCaptor.forClass(EmployeeChangedEvent.class);
+        verify(eventPublisher,times(1)).publishEvent(event.capture());
+        assertEquals(EmployeeChangedEvent.Type.DELETED,event.getValue().getType());
+        assertEquals(1L,event.getValue().getId());
+    }
+
+    //test search employees method
+    @DisplayName("test search employees method")
+    @Test
+    public void givenQuery_whenSearchEmployees_thenReturnIndexResults(){
+        when(searchIndex.search("harsh",10)).thenReturn(List.of(employee));
+
+        List<Employee> employees=employeeService.searchEmployees("harsh",10);
+
+        assertEquals(List.of(employee),employees);
+        verifyNoInteractions(employeeRepository);
+    }
+
+    //test get employees after cursor method
+    @DisplayName("test get employees after cursor method")
+    @Test
+    public void givenCursorAndLimit_whenGetEmployeesAfter_thenReturnKeysetPage(){
+        when(employeeRepository.findPageAfter(0L,PageRequest.of(0,10))).thenReturn(List.of(employee));
+
+        List<Employee> employeePage=employeeService.getEmployeesAfter(0L,10);
+
+        assertEquals(1,employeePage.size());
+        verify(employeeRepository,never()).findAll();
+    }
+
+    //test stream all employees method
+    @DisplayName("test stream all employees method")
+    @Test
+    public void givenEmployees_whenStreamAllEmployees_thenVisitAndDetachEachEmployee(){
+        Employee employee1=Employee.builder()
+                .id(2L)
+                .firstName("tony")
+                .lastName("robbins")
+                .email("tony@abc.com")
+                .build();
+        when(employeeRepository.streamAll()).thenReturn(Stream.of(employee,employee1));
+
+        List<Employee> visited=new ArrayList<>();
+        employeeService.streamAllEmployees(visited::add);
+
+        assertEquals(List.of(employee,employee1),visited);
+        verify(entityManager,times(1)).detach(employee);
+        verify(entityManager,times(1)).detach(employee1);
+    }
+
+    //test bulk save employees method
+    @DisplayName("test bulk save employees method")
+    @Test
+    public void givenEmployeesWithDuplicates_whenSaveEmployees_thenReturnPerItemResults(){
+        Employee newEmployee=Employee.builder()
+                .id(7L)
+                .firstName("tony")
+                .lastName("robbins")
+                .email("tony@abc.com")
+                .version(3L)
+                .build();
+        Employee duplicateInRequest=Employee.builder()
+                .firstName("tony")
+                .lastName("stark")
+                .email("tony@abc.com")
+                .build();
+        Employee invalidEmployee=Employee.builder()
+                .firstName("no")
+                .build();
+        when(employeeRepository.findByEmailIn(anyList())).thenReturn(List.of(employee));
+        when(employeeRepository.save(newEmployee)).thenAnswer(invocation->{
+            //inserted as a new row
+            assertNull(newEmployee.getId());
+            assertNull(newEmployee.getVersion());
+            newEmployee.setId(2L);
+            return newEmployee;
+        });
+
+        List<BulkItemResult> results=employeeService.saveEmployees(List.of(employee,newEmployee,duplicateInRequest,invalidEmployee));
+
+        assertEquals(BulkItemStatus.CONFLICT,results.get(0).getStatus());
+        assertEquals(BulkItemStatus.CREATED,results.get(1).getStatus());
+        assertEquals(2L,results.get(1).getId());
+        assertEquals(BulkItemStatus.CONFLICT,results.get(2).getStatus());
+        assertEquals(BulkItemStatus.INVALID,results.get(3).getStatus());
+        verify(employeeRepository,times(1)).findByEmailIn(anyList());
+        verify(employeeRepository,times(1)).save(any(Employee.class));
+    }
+
+    //test bulk update employees method
+    @DisplayName("test bulk update employees method")
+    @Test
+    public void givenEmployees_whenUpdateEmployees_thenApplyChangesToManagedEntities(){
+        Employee changes=Employee.builder()
+                .id(1L)
+                .firstName("harshal")
+                .lastName("kumar")
+                .email("harshal@kumar.com")
+                .build();
+        Employee missing=Employee.builder()
+                .id(9L)
+                .firstName("tony")
+                .lastName("robbins")
+                .email("tony@abc.com")
+                .build();
+        when(employeeRepository.findAllById(anyList())).thenReturn(List.of(employee));
+        when(employeeRepository.findByEmailIn(anyList())).thenReturn(Collections.emptyList());
+
+        List<BulkItemResult> results=employeeService.updateEmployees(List.of(changes,missing));
+
+        assertEquals(BulkItemStatus.UPDATED,results.get(0).getStatus());
+        assertEquals(BulkItemStatus.NOT_FOUND,results.get(1).getStatus());
+        assertEquals("harshal@kumar.com",employee.getEmail());
+        verify(employeeRepository,never()).save(any(Employee.class));
+    }
+
+    //test bulk delete employees method
+    @DisplayName("test bulk delete employees method")
+    @Test
+    public void givenEmployeeIds_whenDeleteEmployees_thenDeleteExistingInOneBatch(){
+        when(employeeRepository.findExistingIds(anyList())).thenReturn(List.of(1L));
+
+        List<BulkItemResult> results=employeeService.deleteEmployees(List.of(1L,2L));
+
+        assertEquals(BulkItemStatus.DELETED,results.get(0).getStatus());
+        assertEquals(BulkItemStatus.NOT_FOUND,results.get(1).getStatus());
+        verify(employeeRepository,times(1)).deleteAllByIdInBatch(List.of(1L));
+        verify(employeeRepository,never()).deleteById(anyLong());
+    }
+
+    //test lookup employees by ids method
+    @DisplayName("test lookup employees by ids method")
+    @Test
+    public void givenIdsWithMissAndNull_whenGetEmployeesByIds_thenResultPerIdInRequestOrder(){
+        when(employeeRepository.findAllById(List.of(2L,1L))).thenReturn(List.of(employee));
+
+        List<EmployeeLookupResult> results=employeeService.getEmployeesByIds(Arrays.asList(2L,null,1L,1L));
+
+        assertEquals(4,results.size());
+        assertEquals(BulkItemStatus.NOT_FOUND,results.get(0).getStatus());
+        assertEquals(2L,results.get(0).getId());
+        assertEquals(BulkItemStatus.INVALID,results.get(1).getStatus());
+        assertEquals(BulkItemStatus.FOUND,results.get(2).getStatus());
+        assertEquals(employee,results.get(2).getEmployee());
+        assertEquals(employee,results.get(3).getEmployee());
+        verify(employeeRepository,times(1)).findAllById(anyList());
+        verify(employeeRepository,never()).findById(anyLong());
+    }
+
+    //test lookup employees by emails method
+    @DisplayName("test lookup employees by emails method")
+    @Test
+    public void givenEmails_whenGetEmployeesByEmails_thenResultPerEmailInRequestOrder(){
+        when(employeeRepository.findByEmailIn(List.of("tony@abc.com","harshal@abc.com"))).thenReturn(List.of(employee));
+
+        List<EmployeeLookupResult> results=employeeService.getEmployeesByEmails(List.of("tony@abc.com","harshal@abc.com"));
+
+        assertEquals(BulkItemStatus.NOT_FOUND,results.get(0).getStatus());
+        assertEquals("tony@abc.com",results.get(0).getEmail());
+        assertEquals(BulkItemStatus.FOUND,results.get(1).getStatus());
+        assertEquals(1L,results.get(1).getId());
+    }
+
+    //test save employee method does not hide other integrity violations
+    @DisplayName("test save employee method does not hide other integrity violations")
+    @Test
+    public void givenNotNullViolation_whenSaveEmployee_thenRethrowViolation(){
+        when(employeeRepository.saveAndFlush(employee)).thenThrow(new DataIntegrityViolationException("could not execute statement",
+                new RuntimeException("NULL not allowed for column \"FIRST_NAME\"")));
+
+        assertThrows(DataIntegrityViolationException.class,()->employeeService.saveEmployee(employee));
+    }
+
+    //test get employee fields method always selects the id
+    @DisplayName("test get employee fields method always selects the id")
+    @Test
+    public void givenFields_whenGetEmployeeFieldsAfter_thenSelectIdFirst(){
+        when(employeeRepository.findFieldsAfter(anyCollection(),eq(0L),eq(10))).thenReturn(List.of(Map.of("id",1L)));
+
+        employeeService.getEmployeeFieldsAfter(List.of("email"),0L,10);
+
+        verify(employeeRepository).findFieldsAfter(argThat(fields->List.copyOf(fields).equals(List.of("id","email"))),eq(0L),eq(10));
+    }
+
+    //test patch employee method
+    @DisplayName("test patch employee method")
+    @Test
+    public void givenPatch_whenPatchEmployee_thenIssueSingleUpdate(){
+        Employee patch=Employee.builder().lastName("kumar").version(0L).build();
+        when(employeeRepository.patchEmployee(1L,null,"kumar",null,0L)).thenReturn(1);
+
+        employeeService.patchEmployee(1L,patch);
+
+        verify(employeeRepository,never()).findById(anyLong());
+        verify(employeeRepository,never()).existsById(anyLong());
+    }
+
+    //test patch employee method for missing employee
+    @DisplayName("test patch employee method for missing employee")
+    @Test
+    public void givenMissingEmployee_whenPatchEmployee_thenThrowNotFound(){
+        Employee patch=Employee.builder().lastName("kumar").build();
+        when(employeeRepository.patchEmployee(1L,null,"kumar",null,null)).thenReturn(0);
+
+        assertThrows(ResourceNotFoundException.class,()->employeeService.patchEmployee(1L,patch));
+    }
+
+    //test patch employee method for stale version
+    @DisplayName("test patch employee method for stale version")
+    @Test
+    public void givenStaleVersion_whenPatchEmployee_thenThrowOptimisticLockingFailure(){
+        Employee patch=Employee.builder().lastName("kumar").version(3L).build();
+        when(employeeRepository.patchEmployee(1L,null,"kumar",null,3L)).thenReturn(0);
+        when(employeeRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,()->employeeService.patchEmployee(1L,patch));
+    }
 }
@@ -0,0 +1,207 @@
+package com.example.springboottesting.sharding;
+
+import com.example.springboottesting.config.ShardingConfig;
+import com.example.springboottesting.dto.BulkItemResult;
+import com.example.springboottesting.dto.BulkItemStatus;
+import com.example.springboottesting.dto.EmployeeLookupResult;
+import com.example.springboottesting.exception.EmployeeAlreadyExistsException;
+import com.example.springboottesting.model.Employee;
+import com.example.springboottesting.service.EmployeeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//three h2 databases as shards
+@SpringBootTest(properties = "app.sharding.urls=jdbc:h2:mem:shardtest0;DB_CLOSE_DELAY=-1,"
+        + "jdbc:h2:mem:shardtest1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shardtest2;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("sharded")
+public class ShardedEmployeeServiceTest {
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardingConfig.ShardDataSources shardDataSources;
+
+    @BeforeEach
+    public void setup(){
+        for(int shard=0;shard<shardRouter.getShardCount();shard++){
+            shard(shard).update("delete from employees");
+            shard(shard).update("delete from employee_emails");
+        }
+    }
+
+    //employees are stored on the shard of their email and found by id
+    @DisplayName("employees are stored on the shard of their email and found by id")
+    @Test
+    public void givenEmployees_whenSaveEmployee_thenStoreOnEmailShardWithShardInId(){
+        for(int i=0;i<12;i++){
+            String email="employee"+i+"@abc.com";
+            Employee savedEmployee=employeeService.saveEmployee(employee(email));
+
+            int shard=shardRouter.shardForEmail(email);
+            assertEquals(shard,savedEmployee.getId()%ShardRouter.MAX_SHARDS);
+            assertEquals(1,shard(shard).queryForObject("select count(*) from employees where email=?",Integer.class,email));
+            assertEquals(email,employeeService.getEmployeeById(savedEmployee.getId()).orElseThrow().getEmail());
+            assertEquals(savedEmployee.getId(),employeeService.getEmployeeByEmail(email).orElseThrow().getId());
+        }
+        assertEquals(12,employeeService.getAllEmployeesSignature().getRowCount());
+    }
+
+    //pages are merged across shards in id order
+    @DisplayName("pages are merged across shards in id order")
+    @Test
+    public void givenEmployeesOnAllShards_whenGetEmployeesAfter_thenReturnMergedKeysetPages(){
+        List<Long> ids=new ArrayList<>();
+        for(int i=0;i<20;i++){
+            ids.add(employeeService.saveEmployee(employee("page"+i+"@abc.com")).getId());
+        }
+        ids.sort(Long::compare);
+
+        List<Long> pagedIds=new ArrayList<>();
+        long after=0;
+        List<Employee> page;
+        do {
+            page=employeeService.getEmployeesAfter(after,7);
+            page.forEach(employee->pagedIds.add(employee.getId()));
+            after=page.isEmpty() ? after : page.get(page.size()-1).getId();
+        } while(page.size()==7);
+
+        assertEquals(ids,pagedIds);
+        assertEquals(ids,employeeService.getAllEmployees().stream().map(Employee::getId).toList());
+    }
+
+    //bulk results keep request order across shards
+    @DisplayName("bulk results keep request order across shards")
+    @Test
+    public void givenBulkRequestSpanningShards_whenSaveEmployees_thenReturnResultsInRequestOrder(){
+        List<Employee> employees=new ArrayList<>();
+        for(int i=0;i<10;i++){
+            employees.add(employee("bulk"+i+"@abc.com"));
+        }
+        employees.add(employee("bulk3@abc.com"));
+
+        List<BulkItemResult> results=employeeService.saveEmployees(employees);
+
+        for(int i=0;i<10;i++){
+            assertEquals(i,results.get(i).getIndex());
+            assertEquals(BulkItemStatus.CREATED,results.get(i).getStatus());
+            assertEquals(shardRouter.shardForEmail("bulk"+i+"@abc.com"),results.get(i).getId()%ShardRouter.MAX_SHARDS);
+        }
+        assertEquals(BulkItemStatus.CONFLICT,results.get(10).getStatus());
+
+        List<BulkItemResult> deleted=employeeService.deleteEmployees(List.of(results.get(0).getId(),results.get(5).getId(),-1L));
+        assertEquals(BulkItemStatus.DELETED,deleted.get(0).getStatus());
+        assertEquals(BulkItemStatus.DELETED,deleted.get(1).getStatus());
+        assertEquals(BulkItemStatus.NOT_FOUND,deleted.get(2).getStatus());
+        assertEquals(8,employeeService.getAllEmployees().size());
+    }
+
+    //an email can not be taken twice through another shard
+    @DisplayName("an email can not be taken twice through another shard")
+    @Test
+    public void givenEmailOfOtherShard_whenPatchEmployee_thenThrowException(){
+        Employee employee=employeeService.saveEmployee(employee("first@abc.com"));
+        String otherEmail=emailOutsideShardOf(employee.getId());
+        employeeService.saveEmployee(employee(otherEmail));
+
+        Employee patch=Employee.builder().email(otherEmail).build();
+        assertThrows(EmployeeAlreadyExistsException.class,()->employeeService.patchEmployee(employee.getId(),patch));
+        assertEquals("first@abc.com",employeeService.getEmployeeById(employee.getId()).orElseThrow().getEmail());
+    }
+
+    //an update may move an email to a row on another shard, the email stays taken and the old one is free again
+    @DisplayName("an update may move an email to a row on another shard, the email stays taken and the old one is free again")
+    @Test
+    public void givenEmailMovedToOtherShard_whenSaveEmployeeWithThatEmail_thenThrowException(){
+        Employee employee=employeeService.saveEmployee(employee("first@abc.com"));
+        String otherEmail=emailOutsideShardOf(employee.getId());
+        Employee updatedEmployee=Employee.builder().id(employee.getId()).firstName("harshal").lastName("aher")
+                .email(otherEmail).version(employee.getVersion()).build();
+
+        employeeService.updateEmployee(updatedEmployee);
+
+        assertThrows(EmployeeAlreadyExistsException.class,()->employeeService.saveEmployee(employee(otherEmail)));
+        List<BulkItemResult> results=employeeService.saveEmployees(List.of(employee(otherEmail),employee("first@abc.com")));
+        assertEquals(BulkItemStatus.CONFLICT,results.get(0).getStatus());
+        assertEquals(BulkItemStatus.CREATED,results.get(1).getStatus());
+        assertEquals(employee.getId(),employeeService.getEmployeeByEmail(otherEmail).orElseThrow().getId());
+        assertEquals(employee.getId(),employeeService.getEmployeesByEmails(List.of(otherEmail)).get(0).getEmployee().getId());
+        assertEquals(1,employeeService.getAllEmployees().stream().filter(e->e.getEmail().equals(otherEmail)).count());
+    }
+
+    //bulk updates claim emails across shards too, a deleted employee frees its email
+    @DisplayName("bulk updates claim emails across shards too, a deleted employee frees its email")
+    @Test
+    public void givenEmailHeldOnOtherShard_whenUpdateEmployees_thenConflictUntilDeleted(){
+        Employee employee=employeeService.saveEmployee(employee("first@abc.com"));
+        String otherEmail=emailOutsideShardOf(employee.getId());
+        Employee holder=employeeService.saveEmployee(employee(otherEmail));
+        Employee updatedEmployee=Employee.builder().id(employee.getId()).firstName("harshal").lastName("aher").email(otherEmail).build();
+
+        assertEquals(BulkItemStatus.CONFLICT,employeeService.updateEmployees(List.of(updatedEmployee)).get(0).getStatus());
+        employeeService.deleteEmployee(holder.getId());
+
+        assertEquals(BulkItemStatus.UPDATED,employeeService.updateEmployees(List.of(updatedEmployee)).get(0).getStatus());
+        assertEquals(otherEmail,employeeService.getEmployeeById(employee.getId()).orElseThrow().getEmail());
+        assertEquals(BulkItemStatus.CREATED,employeeService.saveEmployees(List.of(employee("first@abc.com"))).get(0).getStatus());
+    }
+
+    //lookups cover all shards and keep the request order
+    @DisplayName("lookups cover all shards and keep the request order")
+    @Test
+    public void givenEmployeesOnAllShards_whenLookup_thenResultsInRequestOrder(){
+        List<Long> ids=new ArrayList<>();
+        List<String> emails=new ArrayList<>();
+        for(int i=0;i<6;i++){
+            Employee savedEmployee=employeeService.saveEmployee(employee("lookup"+i+"@abc.com"));
+            ids.add(0,savedEmployee.getId());
+            emails.add(0,savedEmployee.getEmail());
+        }
+        ids.add(1,999L*ShardRouter.MAX_SHARDS);
+        emails.add(1,"missing@abc.com");
+
+        List<EmployeeLookupResult> byId=employeeService.getEmployeesByIds(ids);
+        List<EmployeeLookupResult> byEmail=employeeService.getEmployeesByEmails(emails);
+
+        for(int i=0;i<ids.size();i++){
+            assertEquals(i,byId.get(i).getIndex());
+            assertEquals(i,byEmail.get(i).getIndex());
+            assertEquals(i==1?BulkItemStatus.NOT_FOUND:BulkItemStatus.FOUND,byId.get(i).getStatus());
+            assertEquals(i==1?BulkItemStatus.NOT_FOUND:BulkItemStatus.FOUND,byEmail.get(i).getStatus());
+            if(i!=1){
+                assertEquals(ids.get(i),byId.get(i).getEmployee().getId());
+                assertEquals(emails.get(i),byEmail.get(i).getEmployee().getEmail());
+            }
+        }
+    }
+
+    private JdbcTemplate shard(int shard){
+        return new JdbcTemplate(shardDataSources.get().get(shard));
+    }
+
+    private String emailOutsideShardOf(Long id){
+        for(int i=0;;i++){
+            String email="other"+i+"@abc.com";
+            if(shardRouter.shardForEmail(email)!=shardRouter.shardForId(id)){
+                return email;
+            }
+        }
+    }
+
+    private static Employee employee(String email){
+        return Employee.builder().firstName("harshal").lastName("aher").email(email).build();
+    }
+}
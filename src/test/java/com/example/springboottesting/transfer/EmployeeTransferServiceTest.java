@@ -0,0 +1,167 @@
+package com.example.springboottesting.transfer;
+
+import com.example.springboottesting.dto.BulkItemResult;
+import com.example.springboottesting.dto.BulkItemStatus;
+import com.example.springboottesting.dto.ImportResult;
+import com.example.springboottesting.model.Employee;
+import com.example.springboottesting.service.EmployeeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeTransferServiceTest {
+
+    @Mock
+    private EmployeeService employeeService;
+
+    @Captor
+    private ArgumentCaptor<List<Employee>> chunk;
+
+    private EmployeeTransferService transferService;
+
+    private Employee employee;
+
+    private Employee employee1;
+
+    @BeforeEach
+    public void setup(){
+        transferService=new EmployeeTransferService(employeeService,List.of(new CsvEmployeeFormat(),new BinaryEmployeeFormat()));
+        employee=Employee.builder().id(1L).firstName("harshal").lastName("aher").email("harshal@abc.com").version(0L).build();
+        employee1=Employee.builder().id(2L).firstName("ramesh \"ram\"").lastName("patil, jr").email("ramesh@abc.com").version(3L).build();
+        lenient().doAnswer(invocation->{
+            Consumer<Employee> action=invocation.getArgument(0);
+            action.accept(employee);
+            action.accept(employee1);
+            return null;
+        }).when(employeeService).streamAllEmployees(any());
+        lenient().when(employeeService.saveEmployees(anyList())).thenAnswer(invocation->{
+            List<Employee> employees=invocation.getArgument(0);
+            List<BulkItemResult> results=new ArrayList<>();
+            for(int i=0;i<employees.size();i++){
+                results.add(new BulkItemResult(i,(long) i,BulkItemStatus.CREATED,null));
+            }
+            return results;
+        });
+    }
+
+    //export writes a header and quotes special characters
+    @DisplayName("export writes a header and quotes special characters")
+    @Test
+    public void givenEmployees_whenExportCsv_thenWriteQuotedRecords() throws IOException {
+        ByteArrayOutputStream output=new ByteArrayOutputStream();
+
+        long rows=transferService.exportEmployees(transferService.getFormat("csv").orElseThrow(),output);
+
+        assertEquals(2,rows);
+        assertEquals("id,firstName,lastName,email,version\r\n"
+                +"1,harshal,aher,harshal@abc.com,0\r\n"
+                +"2,\"ramesh \"\"ram\"\"\",\"patil, jr\",ramesh@abc.com,3\r\n",output.toString(StandardCharsets.UTF_8));
+    }
+
+    //exported employees can be imported again
+    @DisplayName("exported employees can be imported again")
+    @Test
+    public void givenExport_whenImport_thenSaveSameEmployees() throws IOException {
+        for(String formatName:List.of("csv","binary")){
+            EmployeeFormat format=transferService.getFormat(formatName).orElseThrow();
+            ByteArrayOutputStream output=new ByteArrayOutputStream();
+            transferService.exportEmployees(format,output);
+
+            ImportResult result=transferService.importEmployees(format,new ByteArrayInputStream(output.toByteArray()));
+
+            assertEquals(2,result.getRows());
+            assertEquals(2,result.getCreated());
+        }
+        verify(employeeService,times(2)).saveEmployees(chunk.capture());
+        Employee imported=chunk.getValue().get(1);
+        assertEquals(employee1.getFirstName(),imported.getFirstName());
+        assertEquals(employee1.getLastName(),imported.getLastName());
+        assertEquals(employee1.getEmail(),imported.getEmail());
+    }
+
+    //import saves in chunks
+    @DisplayName("import saves in chunks")
+    @Test
+    public void givenLargeCsv_whenImport_thenSaveInChunks() throws IOException {
+        StringBuilder csv=new StringBuilder("email,firstName,lastName\n");
+        int rows=EmployeeTransferService.IMPORT_CHUNK_SIZE*2+1;
+        for(int i=0;i<rows;i++){
+            csv.append("employee").append(i).append("@abc.com,first,last\n");
+        }
+
+        ImportResult result=transferService.importEmployees(transferService.getFormat("csv").orElseThrow(),
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(rows,result.getRows());
+        verify(employeeService,times(3)).saveEmployees(anyList());
+    }
+
+    //empty strings survive a round trip, empty unquoted fields are read as null
+    @DisplayName("empty strings survive a round trip, empty unquoted fields are read as null")
+    @Test
+    public void givenEmptyStrings_whenExportAndImportCsv_thenKeepEmptyAndNullApart() throws IOException {
+        EmployeeFormat format=transferService.getFormat("csv").orElseThrow();
+        employee.setFirstName("");
+        employee1.setLastName(null);
+        ByteArrayOutputStream output=new ByteArrayOutputStream();
+        transferService.exportEmployees(format,output);
+
+        transferService.importEmployees(format,new ByteArrayInputStream(output.toByteArray()));
+
+        assertTrue(output.toString(StandardCharsets.UTF_8).contains("1,\"\",aher,"));
+        verify(employeeService).saveEmployees(chunk.capture());
+        assertEquals("",chunk.getValue().get(0).getFirstName());
+        assertNull(chunk.getValue().get(1).getLastName());
+    }
+
+    //truncated binary upload is rejected
+    @DisplayName("truncated binary upload is rejected")
+    @Test
+    public void givenTruncatedBinary_whenImport_thenThrowException() throws IOException {
+        EmployeeFormat format=transferService.getFormat("binary").orElseThrow();
+        ByteArrayOutputStream output=new ByteArrayOutputStream();
+        transferService.exportEmployees(format,output);
+        byte[] truncated=Arrays.copyOf(output.toByteArray(),output.size()-1);
+
+        assertThrows(EOFException.class,()->transferService.importEmployees(format,new ByteArrayInputStream(truncated)));
+    }
+
+    //binary export that fails part way through can not be imported as complete
+    @DisplayName("binary export that fails part way through can not be imported as complete")
+    @Test
+    public void givenCursorFailsDuringExport_whenImport_thenThrowException() throws IOException {
+        EmployeeFormat format=transferService.getFormat("binary").orElseThrow();
+        doAnswer(invocation->{
+            Consumer<Employee> action=invocation.getArgument(0);
+            action.accept(employee);
+            throw new QueryTimeoutException("cursor timed out");
+        }).when(employeeService).streamAllEmployees(any());
+        ByteArrayOutputStream output=new ByteArrayOutputStream();
+
+        assertThrows(QueryTimeoutException.class,()->transferService.exportEmployees(format,output));
+        assertThrows(EOFException.class,()->transferService.importEmployees(format,new ByteArrayInputStream(output.toByteArray())));
+        verify(employeeService,never()).saveEmployees(anyList());
+    }
+}